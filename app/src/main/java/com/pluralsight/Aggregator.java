@@ -0,0 +1,113 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Computes several aggregates over a set of rows in a single parallel pass.
+ * The rows are split across a fork-join pool, and each leaf sums into primitive fields of its own accumulator,
+ * so no row is ever boxed and no accumulator is shared between threads.
+ */
+final class Aggregator {
+    private static final int LEAF_SIZE = 1 << 14;
+
+    private Aggregator() {
+    }
+
+    /**
+     * @param rows  The row numbers to aggregate.
+     * @param cents Looks up the amount of a row, in cents.
+     * @return The aggregates of the rows.
+     */
+    static Aggregate aggregate(int[] rows, IntToLongFunction cents) {
+        var sums = (rows.length <= LEAF_SIZE)
+                   ? new Accumulator().addAll(rows, 0, rows.length, cents)
+                   : ForkJoinPool.commonPool().invoke(new SumTask(rows, cents, 0, rows.length));
+        return sums.toAggregate();
+    }
+
+    /**
+     * The aggregates of some transactions.
+     *
+     * @param all      The count and total of every transaction.
+     * @param credits  The count and total of transactions which received money.
+     * @param debits   The count and total of transactions which spent money.
+     * @param minCents The lowest amount of any transaction, in cents, or {@code 0} if there are none.
+     * @param maxCents The highest amount of any transaction, in cents, or {@code 0} if there are none.
+     */
+    record Aggregate(Totals all, Totals credits, Totals debits, long minCents, long maxCents) {
+    }
+
+    private static final class Accumulator {
+        private long count, cents, creditCount, creditCents, debitCount, debitCents;
+        private long minCents = Long.MAX_VALUE, maxCents = Long.MIN_VALUE;
+
+        private Accumulator addAll(int[] rows, int start, int end, IntToLongFunction column) {
+            for (int i = start; i < end; i++) {
+                var amount = column.applyAsLong(rows[i]);
+                count++;
+                cents += amount;
+                if (amount > 0) {
+                    creditCount++;
+                    creditCents += amount;
+                } else if (amount < 0) {
+                    debitCount++;
+                    debitCents += amount;
+                }
+                minCents = Math.min(minCents, amount);
+                maxCents = Math.max(maxCents, amount);
+            }
+            return this;
+        }
+
+        private Accumulator merge(Accumulator other) {
+            count += other.count;
+            cents += other.cents;
+            creditCount += other.creditCount;
+            creditCents += other.creditCents;
+            debitCount += other.debitCount;
+            debitCents += other.debitCents;
+            minCents = Math.min(minCents, other.minCents);
+            maxCents = Math.max(maxCents, other.maxCents);
+            return this;
+        }
+
+        private Aggregate toAggregate() {
+            return new Aggregate(new Totals(count, cents), new Totals(creditCount, creditCents),
+                new Totals(debitCount, debitCents), (count == 0) ? 0 : minCents, (count == 0) ? 0 : maxCents);
+        }
+    }
+
+    private static final class SumTask extends RecursiveTask<Accumulator> {
+        private final int[] rows;
+        private final IntToLongFunction cents;
+        private final int start, end;
+
+        /**
+         * @param rows  The row numbers to aggregate.
+         * @param cents Looks up the amount of a row, in cents.
+         * @param start The index of the first row this task covers.
+         * @param end   The index just after the last row this task covers.
+         */
+        SumTask(int[] rows, IntToLongFunction cents, int start, int end) {
+            this.rows = rows;
+            this.cents = cents;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if ((end - start) <= LEAF_SIZE)
+                return new Accumulator().addAll(rows, start, end, cents);
+
+            var middle = (start + end) >>> 1;
+            var right = new SumTask(rows, cents, middle, end);
+            right.fork();
+            var left = new SumTask(rows, cents, start, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+
+/**
+ * Runs the ledger's reports and queries from the command line, writing plain text to standard output.
+ * Nothing here touches the terminal UI, so it can be used from scripts and scheduled jobs.
+ */
+final class CommandLine {
+    private static final Set<String> COMMANDS = Set.of("report", "query", "export");
+    private static final String USAGE = """
+        Usage:
+          report <month-to-date|prior-month|year-to-date|prior-year> [--file FILE]
+          query [FILTERS] [--file FILE]
+          export [FILTERS] [--file FILE]
+        Filters:
+          --after DATE --before DATE --description TEXT --vendor TEXT --min AMOUNT --max AMOUNT --credits --debits
+        Dates are written like 2024-03-01. The default file is Transactions.csv.""";
+    private final PrintWriter out;
+    private String file;
+    private FilterOptions filter;
+    private final List<String> operands;
+
+    private CommandLine(PrintWriter out) {
+        this.out = out;
+        file = "Transactions.csv";
+        filter = new FilterOptions(null, null, null, null, null, null, null);
+        operands = new ArrayList<>();
+    }
+
+    /**
+     * @param args The command line arguments.
+     * @return {@code true} if the arguments name a command, rather than a file to open in the UI.
+     */
+    static boolean isCommand(String[] args) {
+        return (args.length > 0) && COMMANDS.contains(args[0]);
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args The command line arguments, starting with the command name.
+     * @return The exit status: {@code 0} on success, {@code 1} if the ledger cannot be read,
+     *     or {@code 2} if the arguments are invalid.
+     */
+    static int run(String[] args) {
+        var out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        try {
+            var command = new CommandLine(out);
+            command.parse(Arrays.copyOfRange(args, 1, args.length));
+            try (var db = new TransactionDatabase(new File(command.file))) {
+                switch (args[0]) {
+                    case "report" -> command.report(db);
+                    case "query" -> command.query(db);
+                    case "export" -> command.export(db);
+                    default -> throw new IllegalArgumentException("Unknown command: ${args[0]}");
+                }
+            }
+            return 0;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        } catch (IOException e) {
+            System.err.println("An error occurred: ${e.getMessage()}");
+            return 1;
+        } finally {
+            out.flush();
+        }
+    }
+
+    @SuppressWarnings({"OverlyComplexMethod", "OverlyLongMethod"})
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (!arg.startsWith("--")) {
+                operands.add(arg);
+                continue;
+            }
+            switch (arg) {
+                case "--credits" -> filter = filter.withOnlyCredits(true);
+                case "--debits" -> filter = filter.withOnlyCredits(false);
+                case "--file", "--after", "--before", "--description", "--vendor", "--min", "--max" -> {
+                    if ((i + 1) >= args.length)
+                        throw new IllegalArgumentException("Missing value for $arg");
+                    var value = args[++i];
+                    switch (arg) {
+                        case "--file" -> file = value;
+                        case "--after" -> filter = filter.withAfter(LocalDate.parse(value));
+                        case "--before" -> filter = filter.withBefore(LocalDate.parse(value));
+                        case "--description" -> filter = filter.withDescription(value);
+                        case "--vendor" -> filter = filter.withVendor(value);
+                        case "--min" -> filter = filter.withMin(Double.parseDouble(value));
+                        case "--max" -> filter = filter.withMax(Double.parseDouble(value));
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown option: $arg");
+            }
+        }
+    }
+
+    /**
+     * Prints the lines of a preset report.
+     */
+    private void report(TransactionDatabase db) {
+        if (operands.size() != 1)
+            throw new IllegalArgumentException("Expected one report type");
+        var name = operands.get(0).toUpperCase(Locale.ROOT).replace('-', '_');
+        ReportType type;
+        try {
+            type = ReportType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown report: ${operands.get(0)}", e);
+        }
+        out.println(type.getReportName());
+        type.summarize(db).forEach(out::println);
+    }
+
+    /**
+     * Prints each matching transaction in a readable form, then their count and total.
+     */
+    private void query(TransactionDatabase db) {
+        expectNoOperands();
+        var rows = db.rows(filter).toArray();
+        long cents = 0;
+        for (var row : rows) {
+            out.println(db.getRow(row));
+            cents += db.cents(row);
+        }
+        out.println("${rows.length} transactions totalling $%.2f".formatted(cents / 100.0));
+    }
+
+    /**
+     * Prints each matching transaction in the ledger's own CSV format.
+     */
+    private void export(TransactionDatabase db) {
+        expectNoOperands();
+        db.rows(filter).forEachOrdered(row -> out.println(db.getRow(row).serialize()));
+    }
+
+    private void expectNoOperands() {
+        if (!operands.isEmpty())
+            throw new IllegalArgumentException("Unexpected argument: ${operands.get(0)}");
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Represents a growable set of bits which one thread can set while any number of others read it without locking.
+ * Bits are never cleared. The words are copied whenever they grow, so a reader holding the old words
+ * still sees every bit set before the copy.
+ */
+final class ConcurrentBitSet {
+    private static final int INITIAL_WORDS = 16;
+    private volatile AtomicLongArray words;
+
+    ConcurrentBitSet() {
+        words = new AtomicLongArray(INITIAL_WORDS);
+    }
+
+    /**
+     * Sets a bit. Only one thread may set bits at a time.
+     *
+     * @param index The index of the bit to set.
+     */
+    void set(int index) {
+        var word = index >>> 6;
+        var current = words;
+        if (word >= current.length()) {
+            var grown = new AtomicLongArray(Math.max(word + 1, current.length() + (current.length() >> 1)));
+            for (int i = 0; i < current.length(); i++)
+                grown.set(i, current.get(i));
+            words = grown;
+            current = grown;
+        }
+        current.set(word, current.get(word) | (1L << index));
+    }
+
+    /**
+     * @param index The index of a bit.
+     * @return {@code true} if the bit has been set.
+     */
+    boolean get(int index) {
+        var word = index >>> 6;
+        var current = words;
+        return (word < current.length()) && ((current.get(word) & (1L << index)) != 0);
+    }
+}
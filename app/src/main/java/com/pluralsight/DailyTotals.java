@@ -0,0 +1,158 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Represents the count and total of transactions on each day, kept in Fenwick trees
+ * so that both updates and the totals for any range of days take logarithmic time.
+ * The trees cover at most {@value #MAXIMUM_DAYS} days around the first transaction counted.
+ * Days outside that range, such as mistyped years, are kept one by one in a sorted map instead,
+ * so a stray date cannot make the trees huge.
+ */
+final class DailyTotals {
+    private static final long SECONDS_PER_DAY = 86_400;
+    private static final int MINIMUM_DAYS = 64;
+    private static final int MAXIMUM_DAYS = 1 << 16;
+    private final NavigableMap<Long, long[]> outliers;
+    private long[] dayCounts, dayCents, countTree, centsTree;
+    private long firstDay;
+
+    DailyTotals() {
+        outliers = new ConcurrentSkipListMap<>();
+        dayCounts = new long[0];
+        dayCents = new long[0];
+        countTree = new long[1];
+        centsTree = new long[1];
+        firstDay = 0;
+    }
+
+    private static long epochDay(long epochSecond) {
+        return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    }
+
+    private static long prefix(long[] tree, int days) {
+        long sum = 0;
+        for (int i = days; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * Builds a Fenwick tree over some values in linear time.
+     */
+    private static long[] tree(long[] values) {
+        var tree = new long[values.length + 1];
+        System.arraycopy(values, 0, tree, 1, values.length);
+        for (int i = 1; i < tree.length; i++) {
+            var parent = i + (i & -i);
+            if (parent < tree.length)
+                tree[parent] += tree[i];
+        }
+        return tree;
+    }
+
+    /**
+     * Counts a transaction on its day.
+     *
+     * @param epochSecond When the transaction occurred, as seconds since the epoch in UTC.
+     * @param amount      How much money the transaction exchanged, in cents.
+     */
+    void add(long epochSecond, long amount) {
+        update(epochDay(epochSecond), 1, amount);
+    }
+
+    /**
+     * Stops counting a transaction previously passed to {@link #add}.
+     *
+     * @param epochSecond When the transaction occurred, as seconds since the epoch in UTC.
+     * @param amount      How much money the transaction exchanged, in cents.
+     */
+    void remove(long epochSecond, long amount) {
+        update(epochDay(epochSecond), -1, -amount);
+    }
+
+    /**
+     * Sums the days in a half-open range. Either bound can be {@code null} to leave that side open.
+     *
+     * @param after  The first day of the range.
+     * @param before The day just after the end of the range.
+     * @return The count and total of transactions in the range.
+     */
+    Totals total(LocalDate after, LocalDate before) {
+        long count = 0, amount = 0;
+        var start = (after == null) ? 0 : clamp(after.toEpochDay() - firstDay);
+        var end = (before == null) ? dayCounts.length : clamp(before.toEpochDay() - firstDay);
+        if (start < end) {
+            count = prefix(countTree, end) - prefix(countTree, start);
+            amount = prefix(centsTree, end) - prefix(centsTree, start);
+        }
+        var from = (after == null) ? Long.MIN_VALUE : after.toEpochDay();
+        var until = (before == null) ? Long.MAX_VALUE : before.toEpochDay();
+        if (from < until)
+            for (var day : outliers.subMap(from, until).values()) {
+                count += day[0];
+                amount += day[1];
+            }
+        return new Totals(count, amount);
+    }
+
+    private int clamp(long day) {
+        return (int) Math.min(Math.max(day, 0), dayCounts.length);
+    }
+
+    private void update(long day, long count, long amount) {
+        if (!cover(day)) {
+            var totals = outliers.computeIfAbsent(day, key -> new long[2]);
+            totals[0] += count;
+            totals[1] += amount;
+            if (totals[0] == 0)
+                outliers.remove(day);
+            return;
+        }
+        var slot = (int) (day - firstDay);
+        dayCounts[slot] += count;
+        dayCents[slot] += amount;
+        for (int i = slot + 1; i < countTree.length; i += i & -i) {
+            countTree[i] += count;
+            centsTree[i] += amount;
+        }
+    }
+
+    /**
+     * Widens the range of days the trees cover to include a day, if that keeps it within the limit.
+     * Widening doubles the range and rebuilds the trees from the daily values, so it happens rarely.
+     *
+     * @return {@code true} if the trees cover the day.
+     */
+    private boolean cover(long day) {
+        if (dayCounts.length == 0)
+            firstDay = day - (MINIMUM_DAYS / 2);
+        var lastDay = firstDay + dayCounts.length;
+        if ((day >= firstDay) && (day < lastDay))
+            return true;
+        var newFirstDay = Math.min(firstDay, day);
+        var span = Math.max(lastDay, day + 1) - newFirstDay;
+        if ((span <= 0) || (span > MAXIMUM_DAYS))
+            return false;
+        var length = (int) Math.min(Math.max(span * 2, MINIMUM_DAYS), MAXIMUM_DAYS);
+        if (day < firstDay)
+            newFirstDay -= length - span;
+        var shift = (int) (firstDay - newFirstDay);
+        dayCounts = resized(dayCounts, shift, length);
+        dayCents = resized(dayCents, shift, length);
+        firstDay = newFirstDay;
+        countTree = tree(dayCounts);
+        centsTree = tree(dayCents);
+        return true;
+    }
+
+    private static long[] resized(long[] values, int shift, int length) {
+        var result = new long[length];
+        System.arraycopy(values, 0, result, shift, values.length);
+        return result;
+    }
+}
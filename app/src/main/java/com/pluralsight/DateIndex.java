@@ -0,0 +1,74 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Represents an index from days to the rows of transactions which occurred on them,
+ * so that date-bounded queries only have to look at the rows within their bounds.
+ * Only one thread may add rows at a time, but any number of others can query the index without locking.
+ */
+final class DateIndex {
+    private static final long SECONDS_PER_DAY = 86_400;
+    private final NavigableMap<Long, IntList> days;
+    private long lastDay;
+    private IntList lastRows;
+
+    DateIndex() {
+        days = new ConcurrentSkipListMap<>();
+        lastRows = null;
+    }
+
+    /**
+     * Adds a row to this index. Rows must be added in ascending order.
+     *
+     * @param row         The row number.
+     * @param epochSecond When the transaction in the row occurred, as seconds since the epoch in UTC.
+     */
+    void add(int row, long epochSecond) {
+        var day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        // Ledgers are mostly in date order, so consecutive rows usually land on the same day
+        if ((lastRows == null) || (day != lastDay)) {
+            lastDay = day;
+            lastRows = days.computeIfAbsent(day, d -> new IntList());
+        }
+        lastRows.add(row);
+    }
+
+    /**
+     * Finds the rows within a date range. Either bound can be {@code null} to leave that side open.
+     *
+     * @param after  The first day of the range.
+     * @param before The day just after the end of the range.
+     * @return The rows added for days in the range, in ascending order.
+     *     Rows added while this runs may or may not be included.
+     */
+    int[] rows(LocalDate after, LocalDate before) {
+        // Days can be added to and grow while this runs, so settle which rows to copy first
+        var slice = List.copyOf(slice(after, before).values());
+        var counts = slice.stream().mapToInt(IntList::size).toArray();
+        var rows = new int[Arrays.stream(counts).sum()];
+        var offset = 0;
+        for (int i = 0; i < slice.size(); i++) {
+            slice.get(i).copyInto(rows, offset, counts[i]);
+            offset += counts[i];
+        }
+        if (slice.size() > 1)
+            Arrays.sort(rows);
+        return rows;
+    }
+
+    private NavigableMap<Long, IntList> slice(LocalDate after, LocalDate before) {
+        if ((after != null) && (before != null) && !after.isBefore(before))
+            return Collections.emptyNavigableMap();
+        NavigableMap<Long, IntList> slice = days;
+        if (after != null)
+            slice = slice.tailMap(after.toEpochDay(), true);
+        if (before != null)
+            slice = slice.headMap(before.toEpochDay(), false);
+        return slice;
+    }
+}
@@ -0,0 +1,70 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+/**
+ * Represents how long records may wait in memory before a {@link TransactionDatabase} forces them to its file.
+ * Records are written as soon as either limit is reached, and always when the database is closed.
+ *
+ * @param maxDelayMillis The longest a record may wait, in milliseconds.
+ * @param maxRecords     The most records which may wait at once.
+ */
+record DurabilityPolicy(long maxDelayMillis, int maxRecords) {
+    /**
+     * The name of the system property read by {@link #fromSystemProperty()}.
+     */
+    static final String PROPERTY = "ledger.durability";
+
+    /**
+     * @return A policy under which every mutation waits until its record is on the storage device.
+     */
+    static DurabilityPolicy everyCommit() {
+        return new DurabilityPolicy(0, 1);
+    }
+
+    /**
+     * @param millis How long records may wait.
+     * @return A policy under which records are written in batches at most {@code millis} apart.
+     */
+    static DurabilityPolicy everyMillis(long millis) {
+        return new DurabilityPolicy(millis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param records How many records may wait.
+     * @return A policy under which records are written in batches of {@code records}.
+     */
+    static DurabilityPolicy everyRecords(int records) {
+        return new DurabilityPolicy(Long.MAX_VALUE, records);
+    }
+
+    /**
+     * Reads a policy from the {@value #PROPERTY} system property, which can be {@code commit},
+     * {@code millis:N}, or {@code records:N}.
+     *
+     * @return The configured policy, or {@link #everyCommit()} if none is configured.
+     * @throws IllegalArgumentException If the property is not a valid policy.
+     */
+    static DurabilityPolicy fromSystemProperty() {
+        var value = System.getProperty(PROPERTY, "commit");
+        var separator = value.indexOf(':');
+        var kind = (separator < 0) ? value : value.substring(0, separator);
+        try {
+            return switch (kind) {
+                case "commit" -> everyCommit();
+                case "millis" -> everyMillis(Long.parseLong(value.substring(separator + 1)));
+                case "records" -> everyRecords(Integer.parseInt(value.substring(separator + 1)));
+                default -> throw new IllegalArgumentException("Unknown durability policy: $value");
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown durability policy: $value", e);
+        }
+    }
+
+    /**
+     * @return {@code true} if mutations should wait for their records to be written.
+     */
+    boolean synchronous() {
+        return (maxDelayMillis <= 0) || (maxRecords <= 1);
+    }
+}
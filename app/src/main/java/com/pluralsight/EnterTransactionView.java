@@ -18,11 +18,14 @@ final class EnterTransactionView extends BasicWindow {
     private final ErrorTextBox itemInput, vendorInput;
     private final DatePicker dateInput;
     private final TimePicker timeInput;
+    private final MutationRunner mutations;
 
     @SuppressWarnings("FeatureEnvy")
-    EnterTransactionView(boolean credit, TransactionDatabase db) {
+    EnterTransactionView(boolean credit, TransactionDatabase db, MutationRunner mutations) {
         super(credit ? "Enter a Credit" : "Enter a Debit");
 
+        this.mutations = mutations;
+
         setHints(List.of(Hint.MODAL, Hint.CENTERED));
 
         Panel panel = new Panel(new GridLayout(2));
@@ -113,13 +116,15 @@ final class EnterTransactionView extends BasicWindow {
                      .build()
                      .showDialog(getTextGUI()) == MessageDialogButton.Yes) {
             //noinspection OptionalGetWithoutIsPresent
-            db.addTransaction(new Transaction(
+            var transaction = new Transaction(
                 LocalDateTime.of(dateInput.dateValue(), timeInput.timeValue()),
                 itemInput.getText(),
                 vendorInput.getText(),
-                (credit ? 1 : -1) * amountInput.moneyValue().getAsDouble())
-            );
-            close();
+                (credit ? 1 : -1) * amountInput.moneyValue().getAsDouble());
+            mutations.run(getTextGUI(), getTitle(), () -> {
+                db.addTransaction(transaction);
+                return transaction;
+            }, added -> close());
         }
     }
 }
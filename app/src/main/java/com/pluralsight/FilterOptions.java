@@ -0,0 +1,176 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Represents filtering options for a list of transaction.
+ * Any filter can be {@code null} to not use it.
+ * Note that date filtering is half-open, while amount filtering is closed.
+ *
+ * @param after       The transaction must have occurred on or after this date.
+ * @param before      The transaction must have occurred strictly before this date.
+ * @param description The transaction's description must contain this text.
+ * @param vendor      The transaction's vendor must contain this text.
+ * @param minAmount   The transaction must be for at least this much money.
+ * @param maxAmount   The transaction must be for at most this much money.
+ * @param onlyCredits If {@code true}, only credits are shown. If {@code false}, only debits are shown.
+ */
+@SuppressWarnings("ParameterHidesMemberVariable")
+record FilterOptions(LocalDate after, LocalDate before, String description, String vendor, Double minAmount,
+                     Double maxAmount, Boolean onlyCredits) implements Predicate<Transaction> {
+    @SuppressWarnings({"OverlyComplexMethod", "FeatureEnvy"})
+    @Override
+    public boolean test(Transaction t) {
+        return
+            ((after == null) || t.date() >= after)
+            && ((before == null) || t.date() < before)
+            && ((description == null) || t.description().toLowerCase().contains(description.toLowerCase()))
+            && ((vendor == null) || t.vendor().toLowerCase().contains(vendor.toLowerCase()))
+            && ((minAmount == null) || (Math.abs(t.amount()) >= minAmount))
+            && ((maxAmount == null) || (Math.abs(t.amount()) <= maxAmount))
+            && ((onlyCredits == null) || (onlyCredits ? (t.amount() > 0) : (t.amount() < 1)));
+    }
+
+    /**
+     * Compiles this filter into a predicate over every row of a database.
+     *
+     * @param database The database whose rows will be tested.
+     * @return A predicate which accepts a row exactly when {@link #test} would accept its transaction.
+     * @see #compile(TransactionDatabase, int, int)
+     */
+    IntPredicate compile(TransactionDatabase database) {
+        return compile(database, 0, database.rowLimit());
+    }
+
+    /**
+     * Compiles this filter into a predicate over the rows of a database.
+     * Only the clauses in use are checked, each against primitive column values, so testing a row does not allocate.
+     * When {@link NumericScan#enabled()}, the date and amount clauses are instead checked up front
+     * for a range of rows which the predicate will mostly be asked about.
+     *
+     * @param database The database whose rows will be tested.
+     * @param start    The first row to check up front.
+     * @param end      The row just after the last row to check up front.
+     * @return A predicate which accepts a row exactly when {@link #test} would accept its transaction.
+     */
+    IntPredicate compile(TransactionDatabase database, int start, int end) {
+        var clauses = new ArrayList<IntPredicate>();
+        var scanNumbers = NumericScan.enabled() && ((minAmount != null) || (maxAmount != null) || (onlyCredits != null));
+        if (scanNumbers)
+            clauses.add(database.numericMatches(numericBounds(), start, end));
+        if ((after != null) && !scanNumbers) {
+            var from = TransactionStore.toEpochSecond(after.atStartOfDay());
+            clauses.add(row -> database.epochSecond(row) >= from);
+        }
+        if ((before != null) && !scanNumbers) {
+            var until = TransactionStore.toEpochSecond(before.atStartOfDay());
+            clauses.add(row -> database.epochSecond(row) < until);
+        }
+        if ((description != null) && !description.isEmpty())
+            clauses.add(database.descriptionMatches(description));
+        if ((vendor != null) && !vendor.isEmpty())
+            clauses.add(database.vendorMatches(vendor));
+        if ((minAmount != null) && !scanNumbers) {
+            double min = minAmount;
+            clauses.add(row -> (Math.abs(database.cents(row)) / 100.0) >= min);
+        }
+        if ((maxAmount != null) && !scanNumbers) {
+            double max = maxAmount;
+            clauses.add(row -> (Math.abs(database.cents(row)) / 100.0) <= max);
+        }
+        if ((onlyCredits != null) && !scanNumbers)
+            clauses.add(onlyCredits
+                ? row -> database.cents(row) > 0
+                : row -> database.cents(row) < 100);
+        return clauses.stream().reduce(IntPredicate::and).orElse(row -> true);
+    }
+
+    /**
+     * @return The dates, amounts, and credit or debit clauses of this filter as bounds on a database's columns.
+     */
+    NumericBounds numericBounds() {
+        var all = NumericBounds.ALL;
+        var minCents = all.minCents();
+        var maxCents = all.maxCents();
+        if (onlyCredits != null) {
+            if (onlyCredits)
+                minCents = 1;
+            else
+                maxCents = 99;
+        }
+        return new NumericBounds(
+            (after == null) ? all.fromSecond() : TransactionStore.toEpochSecond(after.atStartOfDay()),
+            (before == null) ? all.untilSecond() : (TransactionStore.toEpochSecond(before.atStartOfDay()) - 1),
+            minCents, maxCents,
+            (minAmount == null) ? all.minAbsCents() : NumericBounds.centsAtLeast(minAmount),
+            (maxAmount == null) ? all.maxAbsCents() : NumericBounds.centsAtMost(maxAmount));
+    }
+
+    /**
+     * @return {@code true} if this filter only limits the dates of transactions,
+     *     so its matches can be counted and totalled from the database's daily totals.
+     */
+    boolean onlyDates() {
+        return ((description == null) || description.isEmpty())
+               && ((vendor == null) || vendor.isEmpty())
+               && (minAmount == null)
+               && (maxAmount == null)
+               && (onlyCredits == null);
+    }
+
+    /**
+     * Checks whether this filter is at least as strict as another, clause by clause.
+     *
+     * @param other The filter to compare against.
+     * @return {@code true} if every transaction which passes this filter is certain to pass {@code other}.
+     */
+    @SuppressWarnings({"OverlyComplexMethod", "FeatureEnvy"})
+    boolean refines(FilterOptions other) {
+        return
+            ((other.after == null) || ((after != null) && !after.isBefore(other.after)))
+            && ((other.before == null) || ((before != null) && !before.isAfter(other.before)))
+            && containsText(description, other.description)
+            && containsText(vendor, other.vendor)
+            && ((other.minAmount == null) || ((minAmount != null) && (minAmount >= other.minAmount)))
+            && ((other.maxAmount == null) || ((maxAmount != null) && (maxAmount <= other.maxAmount)))
+            && ((other.onlyCredits == null) || other.onlyCredits.equals(onlyCredits));
+    }
+
+    private static boolean containsText(String needle, String otherNeedle) {
+        return (otherNeedle == null)
+               || otherNeedle.isEmpty()
+               || ((needle != null) && needle.toLowerCase().contains(otherNeedle.toLowerCase()));
+    }
+
+    FilterOptions withAfter(LocalDate after) {
+        return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    }
+
+    FilterOptions withBefore(LocalDate before) {
+        return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    }
+
+    FilterOptions withDescription(String description) {
+        return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    }
+
+    FilterOptions withVendor(String vendor) {
+        return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    }
+
+    FilterOptions withMin(Double minAmount) {
+        return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    }
+
+    FilterOptions withMax(Double maxAmount) {
+        return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    }
+
+    FilterOptions withOnlyCredits(Boolean onlyCredits) {
+        return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    }
+}
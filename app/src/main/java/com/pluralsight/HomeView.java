@@ -0,0 +1,77 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import com.googlecode.lanterna.gui2.dialogs.*;
+import com.pluralsight.components.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Represents the home view for an accounting ledger.
+ */
+final class HomeView extends LabeledMenu {
+    private final TransactionDatabase database;
+    private final MutationRunner mutations;
+
+    HomeView(TransactionDatabase database) {
+        super("Accounting Ledger");
+
+        this.database = database;
+        mutations = new MutationRunner();
+
+        setHints(List.of(Hint.CENTERED));
+
+        render(
+            new LabeledButton("Enter Credits", 'C', this::showEnterCredits),
+            new LabeledButton("Enter Debits", 'D', this::showEnterDebits),
+            new LabeledButton("Show Ledger", 'L', this::showLedger),
+            new LabeledButton("Import File", 'I', this::showImport),
+            new LabeledButton("Exit", 'x', this::close)
+        );
+    }
+
+    private void showEnterCredits() {
+        getTextGUI().addWindowAndWait(new EnterTransactionView(true, database, mutations));
+    }
+
+    private void showEnterDebits() {
+        getTextGUI().addWindowAndWait(new EnterTransactionView(false, database, mutations));
+    }
+
+    private void showLedger() {
+        getTextGUI().addWindowAndWait(new TransactionListView(database, mutations));
+    }
+
+    private void showImport() {
+        var location = TextInputDialog.showDialog(getTextGUI(), "Import", "File to import:", "");
+        if ((location == null) || location.isBlank())
+            return;
+
+        Path source;
+        try {
+            source = Path.of(location.trim());
+        } catch (InvalidPathException e) {
+            MessageDialog.showMessageDialog(getTextGUI(), "Import", "Could not import: ${e.getMessage()}");
+            return;
+        }
+        mutations.run(getTextGUI(), "Import", () -> importFrom(source),
+            message -> MessageDialog.showMessageDialog(getTextGUI(), "Import", message));
+    }
+
+    /**
+     * @return A message describing how the import went.
+     */
+    private String importFrom(Path source) {
+        try {
+            var result = database.importTransactions(source);
+            return "Imported ${result.imported()}, skipped ${result.duplicates()} duplicates, rejected ${result.rejected()}"
+                   + System.lineSeparator()
+                   + "(%.0f lines per second)".formatted(result.linesPerSecond());
+        } catch (IOException e) {
+            return "Could not import: ${e.getMessage()}";
+        }
+    }
+}
@@ -0,0 +1,20 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+/**
+ * Represents the outcome of a bulk import into a {@link TransactionDatabase}.
+ *
+ * @param imported     How many transactions were added.
+ * @param duplicates   How many transactions were skipped because the ledger, or an earlier line, already had them.
+ * @param rejected     How many lines could not be read or failed validation.
+ * @param elapsedNanos How long the import took, in nanoseconds.
+ */
+record ImportResult(int imported, int duplicates, int rejected, long elapsedNanos) {
+    /**
+     * @return How many lines were processed per second.
+     */
+    double linesPerSecond() {
+        return (imported + duplicates + rejected) / (Math.max(elapsedNanos, 1) / 1.0e9);
+    }
+}
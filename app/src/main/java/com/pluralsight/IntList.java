@@ -0,0 +1,69 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Represents a growable list of primitive {@code int}s.
+ * Only one thread may add values at a time, but any number of others can read the values added so far
+ * without locking. The array is copied whenever it grows, and each value is published by the size.
+ */
+final class IntList {
+    private volatile int[] values;
+    private volatile int size;
+
+    IntList() {
+        values = new int[8];
+        size = 0;
+    }
+
+    /**
+     * Adds a value to the end of this list.
+     *
+     * @param value The value to add.
+     */
+    void add(int value) {
+        var index = size;
+        if (index == values.length)
+            values = Arrays.copyOf(values, index + (index >> 1) + 1);
+        values[index] = value;
+        size = index + 1;
+    }
+
+    /**
+     * @param index An index into this list.
+     * @return The value at that index.
+     */
+    int get(int index) {
+        Objects.checkIndex(index, size);
+        return values[index];
+    }
+
+    /**
+     * @return How many values are in this list.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies the start of this list into part of an array.
+     *
+     * @param destination The array to copy into.
+     * @param offset      Where in {@code destination} to start copying.
+     * @param count       How many values to copy. Must be at most a size this list has been seen to have.
+     */
+    void copyInto(int[] destination, int offset, int count) {
+        System.arraycopy(values, 0, destination, offset, count);
+    }
+
+    /**
+     * @return The values in this list, in order.
+     */
+    IntStream stream() {
+        var count = size;
+        return Arrays.stream(values, 0, count);
+    }
+}
@@ -0,0 +1,236 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Reads a ledger journal by memory-mapping it, splitting it into newline-aligned chunks,
+ * and parsing the chunks in parallel on a fork-join pool.
+ */
+final class JournalReader {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+    private static final int SCAN_SIZE = 1 << 12;
+    private static final int STRING_CACHE_SIZE = 1 << 13;
+    private static final Predicate<Transaction> ACCEPT_ALL = transaction -> true;
+    private final FileChannel channel;
+    private final Charset charset;
+    private final String tombstonePrefix;
+    private final byte[] tombstoneBytes;
+    private final Predicate<? super Transaction> validator;
+
+    private JournalReader(FileChannel channel, Charset charset, String tombstonePrefix,
+                          Predicate<? super Transaction> validator) {
+        this.channel = channel;
+        this.charset = charset;
+        this.tombstonePrefix = tombstonePrefix;
+        tombstoneBytes = tombstonePrefix.getBytes(charset);
+        this.validator = validator;
+    }
+
+    /**
+     * Reads every record in a journal, keeping them in file order.
+     *
+     * @param path            The journal to read.
+     * @param charset         The charset the journal is written in. It must encode ASCII characters as single bytes.
+     * @param tombstonePrefix The prefix which marks a line as a tombstone rather than a transaction.
+     * @return The records in the journal. Lines which are neither are skipped.
+     * @throws IOException When reading from the file fails.
+     */
+    static Contents read(Path path, Charset charset, String tombstonePrefix) throws IOException {
+        return read(path, charset, tombstonePrefix, ACCEPT_ALL);
+    }
+
+    /**
+     * Reads every record in a journal, keeping them in file order.
+     *
+     * @param path            The journal to read.
+     * @param charset         The charset the journal is written in. It must encode ASCII characters as single bytes.
+     * @param tombstonePrefix The prefix which marks a line as a tombstone rather than a transaction.
+     * @param validator       Checks each transaction as it is parsed. Transactions it fails are rejected.
+     * @return The records in the journal. Lines which are neither, or which fail validation, are counted as rejected.
+     * @throws IOException When reading from the file fails.
+     */
+    static Contents read(Path path, Charset charset, String tombstonePrefix, Predicate<? super Transaction> validator)
+        throws IOException {
+        var chunks = new ArrayList<Contents>();
+        read(path, charset, tombstonePrefix, validator, (chunk, read, size) -> chunks.add(chunk));
+        return Contents.concat(chunks.toArray(Contents[]::new));
+    }
+
+    /**
+     * Reads every record in a journal, handing over each chunk of the file as soon as it and every chunk before it
+     * have been parsed. The first chunk is kept small, so that it arrives quickly however big the file is.
+     *
+     * @param path            The journal to read.
+     * @param charset         The charset the journal is written in. It must encode ASCII characters as single bytes.
+     * @param tombstonePrefix The prefix which marks a line as a tombstone rather than a transaction.
+     * @param consumer        Receives the records in each chunk, in file order, on the calling thread.
+     * @throws IOException            When reading from the file fails.
+     * @throws InterruptedIOException When the calling thread is interrupted while waiting for a chunk.
+     */
+    static void read(Path path, Charset charset, String tombstonePrefix, ChunkConsumer consumer) throws IOException {
+        read(path, charset, tombstonePrefix, ACCEPT_ALL, consumer);
+    }
+
+    private static void read(Path path, Charset charset, String tombstonePrefix,
+                             Predicate<? super Transaction> validator, ChunkConsumer consumer) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var reader = new JournalReader(channel, charset, tombstonePrefix, validator);
+            var boundaries = reader.chunkBoundaries();
+            var tasks = new ArrayList<ForkJoinTask<Contents>>();
+            for (int chunk = 0; chunk < (boundaries.length - 1); chunk++) {
+                long start = boundaries[chunk], end = boundaries[chunk + 1];
+                tasks.add(ForkJoinPool.commonPool().submit(() -> reader.parseChunk(start, end)));
+            }
+
+            try {
+                for (int chunk = 0; chunk < tasks.size(); chunk++)
+                    consumer.accept(tasks.get(chunk).get(), boundaries[chunk + 1], boundaries[boundaries.length - 1]);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading ${path}");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException cause)
+                    throw cause;
+                throw new IOException(e.getCause());
+            } finally {
+                tasks.forEach(task -> task.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Splits the file into chunks which each end just after a newline (or at the end of the file).
+     * The first chunk is the smallest.
+     *
+     * @return The offsets where each chunk starts, followed by the size of the file.
+     * @throws IOException When reading from the file fails.
+     */
+    private long[] chunkBoundaries() throws IOException {
+        var size = channel.size();
+        var parallelism = ForkJoinPool.commonPool().getParallelism();
+        var chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4L)));
+
+        var boundaries = new ArrayList<Long>();
+        boundaries.add(0L);
+        var buffer = ByteBuffer.allocate(SCAN_SIZE);
+        var start = 0L;
+        var nextSize = Math.min(chunkSize, MIN_CHUNK_SIZE);
+        while ((start + nextSize) < size) {
+            var position = start + nextSize;
+            nextSize = chunkSize;
+            var end = -1L;
+            while ((end < 0) && (position < size)) {
+                buffer.clear();
+                var read = channel.read(buffer, position);
+                for (int i = 0; (i < read) && (end < 0); i++)
+                    if (buffer.get(i) == '\n')
+                        end = position + i + 1;
+                position += read;
+            }
+            if ((end < 0) || (end >= size))
+                break;
+            boundaries.add(end);
+            start = end;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Parses every line in a newline-aligned region of the file.
+     *
+     * @param start The offset of the first byte of the region.
+     * @param end   The offset just after the last byte of the region.
+     * @return The records in the region.
+     * @throws IOException When reading from the file fails.
+     */
+    private Contents parseChunk(long start, long end) throws IOException {
+        var rows = new TransactionStore();
+        var tombstones = new TransactionStore();
+        var rejected = 0;
+        var parser = new RowParser(charset, STRING_CACHE_SIZE);
+
+        var length = (int) (end - start);
+        var bytes = new byte[length];
+        channel.map(FileChannel.MapMode.READ_ONLY, start, length).get(bytes);
+
+        var lineStart = 0;
+        while (lineStart < length) {
+            var lineEnd = lineStart;
+            while ((lineEnd < length) && (bytes[lineEnd] != '\n'))
+                lineEnd++;
+            var next = lineEnd + 1;
+            if ((lineEnd > lineStart) && (bytes[lineEnd - 1] == '\r'))
+                lineEnd--;
+
+            var tombstone = startsWith(bytes, lineStart, lineEnd, tombstoneBytes);
+            var target = tombstone ? tombstones : rows;
+            if (parser.parse(bytes, tombstone ? (lineStart + tombstoneBytes.length) : lineStart, lineEnd)) {
+                if ((validator == ACCEPT_ALL) || validator.test(parser.transaction()))
+                    parser.addTo(target);
+                else
+                    rejected++;
+            } else {
+                var line = new String(bytes, lineStart, lineEnd - lineStart, charset);
+                var transaction = Transaction.deserialize(tombstone ? line.substring(tombstonePrefix.length()) : line)
+                    .filter(validator);
+                if (transaction.isPresent())
+                    target.add(transaction.get());
+                else if (!line.isBlank())
+                    rejected++;
+            }
+
+            lineStart = next;
+        }
+
+        return new Contents(rows, tombstones, rejected);
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, byte[] prefix) {
+        return ((end - start) >= prefix.length) && Arrays.equals(bytes, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * The records in a journal.
+     *
+     * @param rows       The transactions written to the journal, in order.
+     * @param tombstones The transactions marked as removed, in order.
+     * @param rejected   How many non-blank lines could not be read as either.
+     */
+    record Contents(TransactionStore rows, TransactionStore tombstones, int rejected) {
+        private static Contents concat(Contents... chunks) {
+            var rows = new TransactionStore(Arrays.stream(chunks).mapToInt(c -> c.rows.size()).sum());
+            var tombstones = new TransactionStore();
+            var rejected = 0;
+            for (var chunk : chunks) {
+                rows.addAll(chunk.rows);
+                tombstones.addAll(chunk.tombstones);
+                rejected += chunk.rejected;
+            }
+            return new Contents(rows, tombstones, rejected);
+        }
+    }
+
+    /**
+     * Receives the chunks of a journal as they are read.
+     */
+    @FunctionalInterface
+    interface ChunkConsumer {
+        /**
+         * @param chunk The records in the chunk.
+         * @param read  How many bytes of the file have been read, up to the end of this chunk.
+         * @param size  The size of the file, in bytes.
+         */
+        void accept(Contents chunk, long read, long size);
+    }
+}
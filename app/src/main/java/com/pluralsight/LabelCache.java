@@ -0,0 +1,57 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Remembers the labels of recently drawn rows, so that redrawing a list does not format them again.
+ * Labels are keyed by row number and by the width they were fitted to, and the least recently used ones are
+ * dropped once there are too many. Rows never change once written, so labels never go stale.
+ * Not thread-safe; it is meant to be used from the GUI thread only.
+ */
+final class LabelCache {
+    /**
+     * The width to use for labels which have not been fitted to any width.
+     */
+    static final int UNFITTED = -1;
+    private final Map<Long, String> labels;
+
+    /**
+     * @param capacity How many labels to keep at most.
+     */
+    LabelCache(int capacity) {
+        labels = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up a label, creating it if it is not cached.
+     *
+     * @param row    The row number the label is for.
+     * @param width  The width the label is fitted to, or {@link #UNFITTED}.
+     * @param create Creates the label if it is not cached.
+     * @return The label.
+     */
+    String get(int row, int width, Supplier<String> create) {
+        var key = (((long) row) << Integer.SIZE) | (width & 0xFFFF_FFFFL);
+        var label = labels.get(key);
+        if (label == null) {
+            label = create.get();
+            labels.put(key, label);
+        }
+        return label;
+    }
+
+    /**
+     * @return How many labels are cached.
+     */
+    int size() {
+        return labels.size();
+    }
+}
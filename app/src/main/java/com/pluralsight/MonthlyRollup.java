@@ -0,0 +1,131 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Represents the count and total of transactions in each calendar month,
+ * kept up to date in constant time as transactions are added and removed.
+ * Buckets cover at most {@value #MAXIMUM_MONTHS} months; months outside them are kept in a sorted map instead.
+ */
+final class MonthlyRollup {
+    private static final long SECONDS_PER_DAY = 86_400;
+    private static final int MAXIMUM_MONTHS = 1 << 14;
+    private final NavigableMap<Long, long[]> outliers;
+    private long[] counts, cents;
+    private long firstMonth;
+
+    MonthlyRollup() {
+        outliers = new ConcurrentSkipListMap<>();
+        counts = new long[0];
+        cents = new long[0];
+        firstMonth = 0;
+    }
+
+    private static long monthIndex(long epochSecond) {
+        var date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+        return monthIndex(YearMonth.from(date));
+    }
+
+    private static long monthIndex(YearMonth month) {
+        return Math.multiplyExact((long) month.getYear(), 12L) + month.getMonthValue() - 1;
+    }
+
+    /**
+     * Counts a transaction in its month.
+     *
+     * @param epochSecond When the transaction occurred, as seconds since the epoch in UTC.
+     * @param amount      How much money the transaction exchanged, in cents.
+     */
+    void add(long epochSecond, long amount) {
+        update(monthIndex(epochSecond), 1, amount);
+    }
+
+    /**
+     * Stops counting a transaction previously passed to {@link #add}.
+     *
+     * @param epochSecond When the transaction occurred, as seconds since the epoch in UTC.
+     * @param amount      How much money the transaction exchanged, in cents.
+     */
+    void remove(long epochSecond, long amount) {
+        update(monthIndex(epochSecond), -1, -amount);
+    }
+
+    /**
+     * Sums the buckets for a range of months. Either bound can be {@code null} to leave that side open.
+     *
+     * @param from  The first month of the range.
+     * @param until The month just after the end of the range.
+     * @return The count and total of transactions in the range.
+     */
+    Totals total(YearMonth from, YearMonth until) {
+        var first = (from == null) ? Long.MIN_VALUE : monthIndex(from);
+        var last = (until == null) ? Long.MAX_VALUE : monthIndex(until);
+        var start = (from == null) ? 0 : clamp(first - firstMonth);
+        var end = (until == null) ? counts.length : clamp(last - firstMonth);
+        long count = 0, amount = 0;
+        for (int slot = start; slot < end; slot++) {
+            count += counts[slot];
+            amount += cents[slot];
+        }
+        if (first < last)
+            for (var month : outliers.subMap(first, last).values()) {
+                count += month[0];
+                amount += month[1];
+            }
+        return new Totals(count, amount);
+    }
+
+    private int clamp(long slot) {
+        return (int) Math.min(Math.max(slot, 0), counts.length);
+    }
+
+    private void update(long month, long count, long amount) {
+        var slot = slot(month);
+        if (slot < 0) {
+            var totals = outliers.computeIfAbsent(month, key -> new long[2]);
+            totals[0] += count;
+            totals[1] += amount;
+            if (totals[0] == 0)
+                outliers.remove(month);
+            return;
+        }
+        counts[slot] += count;
+        cents[slot] += amount;
+    }
+
+    /**
+     * Finds the slot for a month, growing the bucket arrays to cover it if that keeps them within the limit.
+     *
+     * @return The slot, or {@code -1} if the month is too far from the others to have one.
+     */
+    private int slot(long month) {
+        if (counts.length == 0)
+            firstMonth = month;
+        var lastMonth = Math.max(firstMonth + counts.length, month + 1);
+        if ((lastMonth - Math.min(firstMonth, month)) > MAXIMUM_MONTHS)
+            return -1;
+        if (month < firstMonth) {
+            var shift = (int) (firstMonth - month);
+            counts = shifted(counts, shift);
+            cents = shifted(cents, shift);
+            firstMonth = month;
+        }
+        var slot = (int) (month - firstMonth);
+        if (slot >= counts.length) {
+            var length = Math.min(slot + 12, MAXIMUM_MONTHS);
+            counts = Arrays.copyOf(counts, length);
+            cents = Arrays.copyOf(cents, length);
+        }
+        return slot;
+    }
+
+    private static long[] shifted(long[] buckets, int shift) {
+        var result = new long[buckets.length + shift];
+        System.arraycopy(buckets, 0, result, shift, buckets.length);
+        return result;
+    }
+}
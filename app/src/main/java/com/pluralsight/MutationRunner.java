@@ -0,0 +1,55 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import com.googlecode.lanterna.gui2.*;
+import com.googlecode.lanterna.gui2.dialogs.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Runs changes to a database off the GUI thread, one at a time and in order.
+ * A change can take a while, since it waits for the database to finish loading and may have to load a month,
+ * so a waiting dialog covers the GUI while each one runs.
+ */
+final class MutationRunner {
+    private final ExecutorService executor;
+
+    MutationRunner() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "ledger-mutation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Makes a change in the background, then hands its result back to the GUI thread.
+     * If writing the change fails, the error is shown instead. Must be called on the GUI thread.
+     *
+     * @param gui    The GUI to show the waiting dialog on.
+     * @param title  The title of the waiting dialog.
+     * @param change The change to make.
+     * @param onDone Run on the GUI thread with the result of the change, once the waiting dialog is closed.
+     * @param <T>    The type of the result.
+     */
+    <T> void run(WindowBasedTextGUI gui, String title, Supplier<? extends T> change, Consumer<? super T> onDone) {
+        var waiting = WaitingDialog.showDialog(gui, title, "Saving...");
+        executor.execute(() -> {
+            try {
+                var result = change.get();
+                gui.getGUIThread().invokeLater(() -> {
+                    waiting.close();
+                    onDone.accept(result);
+                });
+            } catch (UncheckedIOException e) {
+                gui.getGUIThread().invokeLater(() -> {
+                    waiting.close();
+                    MessageDialog.showMessageDialog(gui, title, "Could not save: ${e.getMessage()}");
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,69 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+/**
+ * Represents the numeric clauses of a filter as inclusive bounds on the columns of a {@link TransactionStore}.
+ * A row passes when every column value, and the absolute value of its amount, lies within its bounds.
+ *
+ * @param fromSecond  The earliest time a transaction may have occurred, as seconds since the epoch in UTC.
+ * @param untilSecond The latest time a transaction may have occurred, as seconds since the epoch in UTC.
+ * @param minCents    The lowest amount a transaction may be for, in cents.
+ * @param maxCents    The highest amount a transaction may be for, in cents.
+ * @param minAbsCents The lowest absolute amount a transaction may be for, in cents.
+ * @param maxAbsCents The highest absolute amount a transaction may be for, in cents.
+ */
+record NumericBounds(long fromSecond, long untilSecond, long minCents, long maxCents, long minAbsCents,
+                     long maxAbsCents) {
+    /**
+     * Bounds which every row passes.
+     */
+    static final NumericBounds ALL = new NumericBounds(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE,
+        0, Long.MAX_VALUE);
+
+    /**
+     * @param min An amount of money.
+     * @return The fewest non-negative cents {@code c} for which {@code c / 100.0 >= min}.
+     */
+    static long centsAtLeast(double min) {
+        if (min <= 0)
+            return 0;
+        if (Double.isNaN(min) || ((min * 100) >= Long.MAX_VALUE))
+            return Long.MAX_VALUE;
+        var cents = (long) Math.ceil(min * 100);
+        while ((cents / 100.0) < min)
+            cents++;
+        while ((cents > 0) && (((cents - 1) / 100.0) >= min))
+            cents--;
+        return cents;
+    }
+
+    /**
+     * @param max An amount of money.
+     * @return The most cents {@code c} for which {@code c / 100.0 <= max}, or {@code -1} if {@code max} is negative.
+     */
+    static long centsAtMost(double max) {
+        if (Double.isNaN(max) || (max < 0))
+            return -1;
+        if ((max * 100) >= Long.MAX_VALUE)
+            return Long.MAX_VALUE;
+        var cents = (long) Math.floor(max * 100);
+        while ((cents / 100.0) > max)
+            cents--;
+        while (((cents + 1) / 100.0) <= max)
+            cents++;
+        return cents;
+    }
+
+    /**
+     * @param epochSecond When a transaction occurred, as seconds since the epoch in UTC.
+     * @param cents       How much money the transaction exchanged, in cents.
+     * @return {@code true} if the transaction passes these bounds.
+     */
+    boolean test(long epochSecond, long cents) {
+        var abs = Math.abs(cents);
+        return (epochSecond >= fromSecond) & (epochSecond <= untilSecond)
+               & (cents >= minCents) & (cents <= maxCents)
+               & (abs >= minAbsCents) & (abs <= maxAbsCents);
+    }
+}
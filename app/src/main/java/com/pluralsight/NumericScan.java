@@ -0,0 +1,76 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.lang.invoke.*;
+import java.util.*;
+
+/**
+ * Selects the rows of a pair of epoch and cents columns which pass some {@link NumericBounds}.
+ * <p>
+ * When the {@code ledger.vector} system property is {@code true} and the {@code jdk.incubator.vector} module
+ * is present (e.g. with {@code --add-modules jdk.incubator.vector}), the columns are scanned with SIMD
+ * instructions by {@code VectorKernel}. Otherwise, they are scanned one row at a time.
+ * The kernel is only compiled by the {@code vector} build profile, so it is looked up by name.
+ */
+final class NumericScan {
+    private static final boolean ENABLED = Boolean.getBoolean("ledger.vector");
+    private static final MethodHandle KERNEL = findKernel();
+
+    private NumericScan() {
+    }
+
+    /**
+     * @return {@code VectorKernel.select}, or {@code null} if the kernel is turned off, or it or its module is missing.
+     */
+    private static MethodHandle findKernel() {
+        if (!ENABLED || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return null;
+        try {
+            return MethodHandles.lookup().findStatic(Class.forName("com.pluralsight.VectorKernel"), "select",
+                MethodType.methodType(void.class, long[].class, long[].class, int.class, int.class, NumericBounds.class,
+                    long[].class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return {@code true} if filters should select rows with a {@link NumericScan} rather than row by row.
+     */
+    static boolean enabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @param epochSeconds The epoch column.
+     * @param cents        The cents column.
+     * @param start        The first row to scan.
+     * @param end          The row just after the last row to scan.
+     * @param bounds       The bounds to check.
+     * @return The set of rows, relative to {@code start}, which pass {@code bounds}.
+     */
+    static BitSet select(long[] epochSeconds, long[] cents, int start, int end, NumericBounds bounds) {
+        var words = new long[((end - start) + 63) >>> 6];
+        if (KERNEL != null)
+            try {
+                KERNEL.invokeExact(epochSeconds, cents, start, end, bounds, words);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Vector kernel failed", e);
+            }
+        else
+            selectScalar(epochSeconds, cents, start, start, end, bounds, words);
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Sets the bit in {@code words} for each row from {@code from} to {@code end} which passes {@code bounds}.
+     * Bits are numbered relative to {@code start}.
+     */
+    static void selectScalar(long[] epochSeconds, long[] cents, int start, int from, int end, NumericBounds bounds,
+                             long[] words) {
+        for (int row = from; row < end; row++)
+            if (bounds.test(epochSeconds[row], cents[row]))
+                words[(row - start) >>> 6] |= 1L << (row - start);
+    }
+}
@@ -0,0 +1,15 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+@SuppressWarnings("UtilityClass")
+final class Program {
+    public static void main(String[] args) {
+        if (CommandLine.isCommand(args))
+            System.exit(CommandLine.run(args));
+
+        if (args.length < 1) System.out.println("No database file provided, using the default...");
+        String location = (args.length < 1) ? "Transactions.csv" : args[0];
+        TerminalApp.run(location);
+    }
+}
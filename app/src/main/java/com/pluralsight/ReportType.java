@@ -0,0 +1,100 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * The type of some report. Each report covers a range of whole months relative to the current month,
+ * which is looked up whenever the report is used.
+ */
+enum ReportType {
+    MONTH_TO_DATE("Month To Date", month -> month, month -> null),
+    PRIOR_MONTH("Prior Month", month -> month.minusMonths(1), month -> month),
+    YEAR_TO_DATE("Year To Date", month -> month.withMonth(1), month -> null),
+    PRIOR_YEAR("Prior Year", month -> month.minusYears(1).withMonth(1), month -> month.withMonth(1));
+
+    private final String reportName;
+    private final UnaryOperator<YearMonth> firstMonth, endMonth;
+
+    ReportType(String reportName, UnaryOperator<YearMonth> firstMonth, UnaryOperator<YearMonth> endMonth) {
+        this.reportName = reportName;
+        this.firstMonth = firstMonth;
+        this.endMonth = endMonth;
+    }
+
+    String getReportName() {
+        return reportName;
+    }
+
+    /**
+     * @param current The current month.
+     * @return The first month this report covers.
+     */
+    YearMonth firstMonth(YearMonth current) {
+        return firstMonth.apply(current);
+    }
+
+    /**
+     * @param current The current month.
+     * @return The month just after the last month this report covers, or {@code null} if it is open-ended.
+     */
+    YearMonth endMonth(YearMonth current) {
+        return endMonth.apply(current);
+    }
+
+    /**
+     * Sums up the transactions this report covers as of today.
+     *
+     * @param db The database to report on.
+     * @return The lines of the report.
+     * @see #summarize(TransactionDatabase, YearMonth)
+     */
+    List<String> summarize(TransactionDatabase db) {
+        return summarize(db, YearMonth.now());
+    }
+
+    /**
+     * Sums up the transactions this report covers: a headline from the monthly rollups,
+     * then a breakdown of credits, debits, and amounts.
+     *
+     * @param db      The database to report on.
+     * @param current The month to treat as the current month.
+     * @return The lines of the report.
+     */
+    List<String> summarize(TransactionDatabase db, YearMonth current) {
+        var result = db.monthlyTotal(firstMonth(current), endMonth(current));
+        var filter = getFilter(current);
+        var breakdown = db.aggregate(filter.after(), filter.before());
+
+        var lines = new ArrayList<String>();
+        lines.add("${result.count()} transactions totalling $%.2f".formatted(result.cents() / 100.0));
+        lines.add(describe("Credits", breakdown.credits()));
+        lines.add(describe("Debits", breakdown.debits()));
+        if (breakdown.all().count() > 0)
+            lines.add("Amounts from $%.2f to $%.2f".formatted(breakdown.minCents() / 100.0, breakdown.maxCents() / 100.0));
+        return lines;
+    }
+
+    private static String describe(String name, Totals totals) {
+        return "$name: ${totals.count()} totalling $%.2f".formatted(totals.cents() / 100.0);
+    }
+
+    /**
+     * @return A filter which matches the transactions this report covers as of today.
+     */
+    FilterOptions getFilter() {
+        return getFilter(YearMonth.now());
+    }
+
+    /**
+     * @param current The month to treat as the current month.
+     * @return A filter which matches the transactions this report covers.
+     */
+    FilterOptions getFilter(YearMonth current) {
+        var end = endMonth(current);
+        return new FilterOptions(firstMonth(current).atDay(1), (end == null) ? null : end.atDay(1), null, null, null, null, null);
+    }
+}
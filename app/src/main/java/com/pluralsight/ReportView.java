@@ -0,0 +1,131 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import com.googlecode.lanterna.gui2.*;
+import com.googlecode.lanterna.gui2.dialogs.*;
+import com.googlecode.lanterna.input.*;
+import com.pluralsight.components.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Represents a view of an aggregated financial report.
+ * The report is worked out on a background thread, since it looks at every transaction in its range.
+ */
+final class ReportView extends DialogWindow {
+    private final Consumer<? super FilterOptions> onShow;
+    private final ReportType reportType;
+    private final TransactionDatabase db;
+    private final Panel summary;
+    private final Runnable onLoad;
+    private final ExecutorService reportExecutor;
+    private Future<?> pendingReport;
+
+    ReportView(ReportType reportType, TransactionDatabase db, Consumer<? super FilterOptions> onShow) {
+        super(reportType.getReportName());
+
+        this.onShow = onShow;
+        this.reportType = reportType;
+        this.db = db;
+
+        reportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "ledger-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var display = new Panel();
+        summary = new Panel();
+        display.addComponent(summary);
+        summary.addComponent(new Label("Loading..."));
+
+        onLoad = () -> {
+            var gui = getTextGUI();
+            if (gui != null)
+                gui.getGUIThread().invokeLater(this::showTotals);
+        };
+        if (db.isLoading())
+            db.addLoadListener(onLoad);
+
+        var buttons = new Panel(new LinearLayout(Direction.HORIZONTAL));
+        display.addComponent(buttons);
+        buttons.addComponent(new LabeledButton("Show", 'S', () -> {
+            onShow.accept(reportType.getFilter());
+            close();
+        }));
+        buttons.addComponent(new LabeledButton("Exit", 'x', this::close));
+
+        setComponent(display);
+
+        setHints(List.of(Hint.CENTERED, Hint.MODAL));
+        setCloseWindowWithEscape(true);
+    }
+
+    @Override
+    public void setTextGUI(WindowBasedTextGUI textGUI) {
+        super.setTextGUI(textGUI);
+        if (textGUI != null)
+            showTotals();
+    }
+
+    @Override
+    public void close() {
+        db.removeLoadListener(onLoad);
+        reportExecutor.shutdownNow();
+        super.close();
+    }
+
+    /**
+     * Starts filling in the report from the database as it currently stands, cancelling any earlier run.
+     * Runs are taken in order, so the last one to finish is always the most recent.
+     * Must be called on the GUI thread.
+     */
+    private void showTotals() {
+        if (pendingReport != null)
+            pendingReport.cancel(true);
+        pendingReport = reportExecutor.submit(() -> {
+            var lines = summarize();
+            var gui = getTextGUI();
+            if (gui != null)
+                gui.getGUIThread().invokeLater(() -> showLines(lines));
+        });
+    }
+
+    private List<String> summarize() {
+        try {
+            var lines = reportType.summarize(db);
+            if (db.isLoading())
+                lines.set(0, "Loading ${db.loadProgress()}%: ${lines.get(0)}");
+            return lines;
+        } catch (UncheckedIOException e) {
+            return List.of("Could not load: ${e.getCause().getMessage()}");
+        }
+    }
+
+    /**
+     * Must be called on the GUI thread.
+     */
+    private void showLines(List<String> lines) {
+        summary.removeAllComponents();
+        lines.forEach(line -> summary.addComponent(new Label(line)));
+    }
+
+    @Override
+    public boolean handleInput(KeyStroke key) {
+        if (key.getKeyType() == KeyType.Character)
+            if ((key.getCharacter() == 'x') || (key.getCharacter() == 'X')) {
+                close();
+                return false;
+            } else if ((key.getCharacter() == 's') || (key.getCharacter() == 'S')) {
+                onShow.accept(reportType.getFilter());
+                close();
+                return false;
+            }
+
+        return super.handleInput(key);
+    }
+}
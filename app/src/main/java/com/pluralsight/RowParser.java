@@ -0,0 +1,210 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Parses rows of CSV in a single pass over their bytes, decoding the date and amount straight into primitives.
+ * Only rows in the form {@link Transaction#serialize()} writes are handled: a timestamp with whole seconds and
+ * an amount with at most two decimal places. Anything else is left for {@link Transaction#deserialize(String)}.
+ * Each parser keeps the fields of the last row it parsed, so it must only be used by one thread.
+ */
+final class RowParser {
+    private static final int COLUMNS = 4;
+    private static final int MAX_AMOUNT_DIGITS = 15;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private final Charset charset;
+    private final byte[][] cachedBytes;
+    private final String[] cachedStrings;
+    private final int[] commas;
+    private long epochSecond, cents;
+    private boolean negative;
+    private String description, vendor;
+
+    /**
+     * @param charset   The charset rows are written in. It must encode ASCII characters as single bytes.
+     * @param cacheSize How many recently decoded strings to remember, so that repeated descriptions and vendors are
+     *                  not decoded again. Must be zero or a power of two.
+     */
+    RowParser(Charset charset, int cacheSize) {
+        assert Integer.bitCount(cacheSize) <= 1 : cacheSize;
+        this.charset = charset;
+        cachedBytes = new byte[cacheSize][];
+        cachedStrings = new String[cacheSize];
+        commas = new int[COLUMNS - 1];
+    }
+
+    /**
+     * Parses a row, keeping its fields in this parser.
+     *
+     * @param bytes The bytes to read from.
+     * @param start The offset of the first byte of the row.
+     * @param end   The offset just after the last byte of the row, not counting the line terminator.
+     * @return {@code true} if the row was parsed. {@code false} means the row is either invalid or
+     *     not in the form this parser handles, and should be parsed the slow way instead.
+     */
+    boolean parse(byte[] bytes, int start, int end) {
+        var found = 0;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] != ',')
+                continue;
+            if (found == commas.length)
+                return false;
+            commas[found++] = i;
+        }
+        if (found != commas.length)
+            return false;
+
+        if (!parseDateTime(bytes, start, commas[0]) || !parseAmount(bytes, commas[2] + 1, end))
+            return false;
+        description = text(bytes, commas[0] + 1, commas[1]);
+        vendor = text(bytes, commas[1] + 1, commas[2]);
+        return true;
+    }
+
+    /**
+     * Adds the last row parsed to a store.
+     *
+     * @param store The store to add to.
+     */
+    void addTo(TransactionStore store) {
+        store.add(epochSecond, cents, description, vendor);
+    }
+
+    /**
+     * @return The last row parsed.
+     */
+    Transaction transaction() {
+        var amount = Math.abs(cents) / 100.0;
+        return new Transaction(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC), description, vendor,
+            negative ? -amount : amount);
+    }
+
+    /**
+     * Reads {@code yyyy-MM-ddTHH:mm} or {@code yyyy-MM-ddTHH:mm:ss}.
+     */
+    @SuppressWarnings("MagicNumber")
+    private boolean parseDateTime(byte[] bytes, int start, int end) {
+        var length = end - start;
+        if ((length != 16) && (length != 19))
+            return false;
+        if ((bytes[start + 4] != '-') || (bytes[start + 7] != '-') || (bytes[start + 10] != 'T')
+            || (bytes[start + 13] != ':') || ((length == 19) && (bytes[start + 16] != ':')))
+            return false;
+
+        var year = digits(bytes, start, 4);
+        var month = digits(bytes, start + 5, 2);
+        var day = digits(bytes, start + 8, 2);
+        var hour = digits(bytes, start + 11, 2);
+        var minute = digits(bytes, start + 14, 2);
+        var second = (length == 19) ? digits(bytes, start + 17, 2) : 0;
+        if ((year < 0) || (month < 1) || (month > 12) || (day < 1) || (day > monthLength(year, month))
+            || (hour < 0) || (hour > 23) || (minute < 0) || (minute > 59) || (second < 0) || (second > 59))
+            return false;
+
+        epochSecond = (epochDay(year, month, day) * SECONDS_PER_DAY) + (hour * 3_600L) + (minute * 60L) + second;
+        return true;
+    }
+
+    /**
+     * Reads {@code -?\d+(\.\d{1,2})?}, which converts to the same cents whether read exactly or as a double.
+     */
+    private boolean parseAmount(byte[] bytes, int start, int end) {
+        var i = start;
+        negative = (i < end) && (bytes[i] == '-');
+        if (negative)
+            i++;
+
+        long value = 0;
+        var digits = 0;
+        while ((i < end) && isDigit(bytes[i])) {
+            value = (value * 10) + (bytes[i++] - '0');
+            digits++;
+        }
+        if (digits == 0)
+            return false;
+
+        var decimals = 0;
+        if ((i < end) && (bytes[i] == '.')) {
+            i++;
+            while ((i < end) && isDigit(bytes[i]) && (decimals < 2)) {
+                value = (value * 10) + (bytes[i++] - '0');
+                decimals++;
+            }
+            if (decimals == 0)
+                return false;
+        }
+        if ((i != end) || ((digits + decimals) > MAX_AMOUNT_DIGITS))
+            return false;
+
+        for (; decimals < 2; decimals++)
+            value *= 10;
+        cents = negative ? -value : value;
+        return true;
+    }
+
+    private String text(byte[] bytes, int start, int end) {
+        if (cachedBytes.length == 0)
+            return new String(bytes, start, end - start, charset);
+
+        var hash = 1;
+        for (int i = start; i < end; i++)
+            hash = (31 * hash) + bytes[i];
+        var slot = (hash ^ (hash >>> 16)) & (cachedBytes.length - 1);
+
+        var cached = cachedBytes[slot];
+        if ((cached != null) && Arrays.equals(cached, 0, cached.length, bytes, start, end))
+            return cachedStrings[slot];
+
+        var value = new String(bytes, start, end - start, charset);
+        cachedBytes[slot] = Arrays.copyOfRange(bytes, start, end);
+        cachedStrings[slot] = value;
+        return value;
+    }
+
+    /**
+     * @return The value of {@code count} decimal digits, or {@code -1} if any of them is not a digit.
+     */
+    private static int digits(byte[] bytes, int start, int count) {
+        var value = 0;
+        for (int i = start; i < (start + count); i++) {
+            if (!isDigit(bytes[i]))
+                return -1;
+            value = (value * 10) + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return (b >= '0') && (b <= '9');
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static int monthLength(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * The same calculation as {@link LocalDate#toEpochDay()}, for years from zero on, without creating a date.
+     */
+    @SuppressWarnings("MagicNumber")
+    private static long epochDay(int year, int month, int day) {
+        long total = (365L * year) + (((year + 3) / 4) - ((year + 99) / 100)) + ((year + 399) / 400);
+        total += ((367 * month) - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!Year.isLeap(year))
+                total--;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -0,0 +1,208 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Writes rows of a store as lines of CSV, formatting dates and amounts straight from the columns into a
+ * reusable buffer which goes to a channel in large blocks.
+ * The output is byte for byte what writing {@link Transaction#serialize()} and a line separator would give.
+ * Descriptions and vendors are only encoded once for each distinct value.
+ */
+final class RowWriter {
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final int MAX_FIXED_SIZE = 64;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final long MAX_CENTS = 999_999_999_999_999L;
+    /**
+     * Whether {@code "%.2f"} writes plain ASCII digits and a decimal point in the default locale, as this writer does.
+     * If not, every row is written through {@link Transaction#serialize()} instead, so that the output still matches.
+     */
+    private static final boolean PLAIN_FORMAT = "%.2f".formatted(-1_234_567.89).equals("-1234567.89");
+    private final TransactionStore store;
+    private final WritableByteChannel channel;
+    private final Charset charset;
+    private final ByteBuffer buffer;
+    private final byte[] lineSeparator;
+    private byte[][] descriptions, vendors;
+    private long lastDay;
+    private int year, month, day;
+
+    /**
+     * @param store   The store to write rows from.
+     * @param channel The channel to write to.
+     * @param charset The charset to write in. It must encode ASCII characters as single bytes.
+     */
+    RowWriter(TransactionStore store, WritableByteChannel channel, Charset charset) {
+        this.store = store;
+        this.channel = channel;
+        this.charset = charset;
+        buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        lineSeparator = System.lineSeparator().getBytes(charset);
+        descriptions = new byte[store.descriptions().size()][];
+        vendors = new byte[store.vendors().size()][];
+        lastDay = Long.MIN_VALUE;
+    }
+
+    /**
+     * Writes a row as a line of CSV, including the line separator.
+     * The line may stay in the buffer until it fills up or {@link #flush()} is called.
+     *
+     * @param row The row number to write.
+     * @throws IOException When writing to the channel fails.
+     */
+    void write(int row) throws IOException {
+        var epochSecond = store.epochSecond(row);
+        var cents = store.cents(row);
+        if (!setDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY)) || (Math.abs(cents) > MAX_CENTS) || !PLAIN_FORMAT) {
+            put(store.get(row).serialize().getBytes(charset));
+            put(lineSeparator);
+            return;
+        }
+
+        reserve(MAX_FIXED_SIZE);
+        putDateTime((int) Math.floorMod(epochSecond, SECONDS_PER_DAY));
+        buffer.put((byte) ',');
+        put(description(store.descriptionId(row)));
+        reserve(1);
+        buffer.put((byte) ',');
+        put(vendor(store.vendorId(row)));
+        reserve(MAX_FIXED_SIZE);
+        buffer.put((byte) ',');
+        putAmount(cents);
+        put(lineSeparator);
+    }
+
+    /**
+     * Writes everything in the buffer to the channel.
+     *
+     * @throws IOException When writing to the channel fails.
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Works out the date of a day, reusing the last one since rows are mostly in date order.
+     *
+     * @return {@code false} if the year is outside the four digit range {@link java.time.LocalDate#toString()}
+     *     writes without a sign.
+     */
+    @SuppressWarnings("MagicNumber")
+    private boolean setDay(long epochDay) {
+        if (epochDay != lastDay) {
+            // Converts days to a proleptic Gregorian date, counting years from March so that leap days come last.
+            var shifted = epochDay + 719_468;
+            var era = Math.floorDiv(shifted, 146_097);
+            var dayOfEra = shifted - (era * 146_097);
+            var yearOfEra = ((dayOfEra - (dayOfEra / 1_460)) + (dayOfEra / 36_524) - (dayOfEra / 146_096)) / 365;
+            var dayOfYear = dayOfEra - (((365 * yearOfEra) + (yearOfEra / 4)) - (yearOfEra / 100));
+            var shiftedMonth = ((5 * dayOfYear) + 2) / 153;
+            var fullYear = yearOfEra + (era * 400) + ((shiftedMonth >= 10) ? 1 : 0);
+            if ((fullYear < 0) || (fullYear > 9_999))
+                return false;
+
+            year = (int) fullYear;
+            month = (int) ((shiftedMonth < 10) ? (shiftedMonth + 3) : (shiftedMonth - 9));
+            day = (int) ((dayOfYear - (((153 * shiftedMonth) + 2) / 5)) + 1);
+            lastDay = epochDay;
+        }
+        return true;
+    }
+
+    /**
+     * Writes {@code yyyy-MM-ddTHH:mm}, then {@code :ss} unless the seconds are zero.
+     */
+    @SuppressWarnings("MagicNumber")
+    private void putDateTime(int secondOfDay) {
+        putDigits(year, 4);
+        buffer.put((byte) '-');
+        putDigits(month, 2);
+        buffer.put((byte) '-');
+        putDigits(day, 2);
+        buffer.put((byte) 'T');
+        putDigits(secondOfDay / 3_600, 2);
+        buffer.put((byte) ':');
+        putDigits((secondOfDay / 60) % 60, 2);
+        var second = secondOfDay % 60;
+        if (second != 0) {
+            buffer.put((byte) ':');
+            putDigits(second, 2);
+        }
+    }
+
+    /**
+     * Writes an amount with exactly two decimal places, as {@code "%.2f"} does for a whole number of cents.
+     */
+    private void putAmount(long cents) {
+        if (cents < 0)
+            buffer.put((byte) '-');
+        var magnitude = Math.abs(cents);
+        var whole = magnitude / 100;
+        var start = buffer.position();
+        do {
+            buffer.put((byte) ('0' + (whole % 10)));
+            whole /= 10;
+        } while (whole > 0);
+        reverse(start, buffer.position());
+        buffer.put((byte) '.');
+        putDigits((int) (magnitude % 100), 2);
+    }
+
+    private void putDigits(int value, int count) {
+        var end = buffer.position() + count;
+        for (int i = end - 1; i >= (end - count); i--) {
+            buffer.put(i, (byte) ('0' + (value % 10)));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private void reverse(int start, int end) {
+        for (int i = start, j = end - 1; i < j; i++, j--) {
+            var swap = buffer.get(i);
+            buffer.put(i, buffer.get(j));
+            buffer.put(j, swap);
+        }
+    }
+
+    private byte[] description(int id) {
+        if (id >= descriptions.length)
+            descriptions = Arrays.copyOf(descriptions, store.descriptions().size());
+        if (descriptions[id] == null)
+            descriptions[id] = store.descriptions().get(id).getBytes(charset);
+        return descriptions[id];
+    }
+
+    private byte[] vendor(int id) {
+        if (id >= vendors.length)
+            vendors = Arrays.copyOf(vendors, store.vendors().size());
+        if (vendors[id] == null)
+            vendors[id] = store.vendors().get(id).getBytes(charset);
+        return vendors[id];
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        var offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining())
+                flush();
+            var length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+}
@@ -0,0 +1,233 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+
+/**
+ * Reads and writes binary snapshots of a ledger journal, so that it can be loaded without parsing any text.
+ * <p>
+ * A snapshot is a fixed-width header, then the description and vendor dictionaries as length-prefixed UTF-8 strings,
+ * then the epoch, cents, description id, and vendor id columns in full. Everything is little-endian.
+ * The header records the size and modification time of the journal it was taken from,
+ * and a snapshot is only used while the journal still matches them.
+ * <p>
+ * Snapshots are read and written whole through a buffer on the heap, so none is kept for a journal
+ * too large for one. They are never memory-mapped, since a mapped file cannot be replaced on Windows.
+ * <p>
+ * Setting the {@value #PROPERTY} system property to {@code false} turns snapshots off, so journals are always parsed.
+ */
+final class SnapshotFile {
+    private static final long MAGIC = 0x4C45_4447_534E_4150L;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int ROW_SIZE = (2 * Long.BYTES) + (2 * Integer.BYTES);
+    private static final long MAX_SIZE = Integer.MAX_VALUE - 8;
+    static final String PROPERTY = "ledger.snapshots";
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(PROPERTY));
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Loads a snapshot if it is up to date with its journal.
+     *
+     * @param snapshot The snapshot to read.
+     * @param journal  The journal the snapshot should match.
+     * @return The snapshot's contents, or nothing if it is missing, stale, or unreadable, or snapshots are off.
+     * @throws IOException When reading from the journal fails.
+     */
+    static Optional<Snapshot> read(Path snapshot, Path journal) throws IOException {
+        if (!ENABLED || !Files.isRegularFile(snapshot))
+            return Optional.empty();
+        var stamp = Files.readAttributes(journal, BasicFileAttributes.class);
+        try (var channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size > MAX_SIZE)
+                return Optional.empty();
+            var buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0)
+                    return Optional.empty();
+            buffer.flip();
+            var rows = readHeader(buffer, stamp);
+            if (rows < 0)
+                return Optional.empty();
+            var fileRows = buffer.getInt();
+            var fileTombstones = buffer.getInt();
+            var descriptionCount = buffer.getInt();
+            var vendorCount = buffer.getInt();
+            var descriptions = readStrings(buffer, descriptionCount);
+            var vendors = readStrings(buffer, vendorCount);
+            if (((long) rows * ROW_SIZE) != buffer.remaining())
+                return Optional.empty();
+
+            var epochSeconds = new long[rows];
+            var cents = new long[rows];
+            var descriptionIds = new int[rows];
+            var vendorIds = new int[rows];
+            buffer.asLongBuffer().get(epochSeconds);
+            buffer.position(buffer.position() + (rows * Long.BYTES));
+            buffer.asLongBuffer().get(cents);
+            buffer.position(buffer.position() + (rows * Long.BYTES));
+            buffer.asIntBuffer().get(descriptionIds);
+            buffer.position(buffer.position() + (rows * Integer.BYTES));
+            buffer.asIntBuffer().get(vendorIds);
+            if (!inRange(descriptionIds, descriptions.length) || !inRange(vendorIds, vendors.length))
+                return Optional.empty();
+
+            var store = TransactionStore.of(descriptions, vendors, epochSeconds, cents, descriptionIds, vendorIds);
+            return Optional.of(new Snapshot(store, fileRows, fileTombstones));
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads how many transactions a snapshot holds from its header alone, if it is up to date with its journal.
+     *
+     * @param snapshot The snapshot to read.
+     * @param journal  The journal the snapshot should match.
+     * @return How many transactions the journal holds which have not been removed,
+     *     or nothing if the snapshot is missing, stale, or unreadable, or snapshots are off.
+     * @throws IOException When reading from the journal fails.
+     */
+    static OptionalInt count(Path snapshot, Path journal) throws IOException {
+        if (!ENABLED || !Files.isRegularFile(snapshot))
+            return OptionalInt.empty();
+        var stamp = Files.readAttributes(journal, BasicFileAttributes.class);
+        try (var channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0)
+                    return OptionalInt.empty();
+            buffer.flip();
+            var rows = readHeader(buffer, stamp);
+            return (rows < 0) ? OptionalInt.empty() : OptionalInt.of(rows);
+        }
+    }
+
+    /**
+     * Reads the start of a header, up to the stamp of the journal it was taken from.
+     *
+     * @return How many rows the snapshot holds, or {@code -1} if it is not a snapshot or does not match {@code stamp}.
+     */
+    private static int readHeader(ByteBuffer buffer, BasicFileAttributes stamp) {
+        if ((buffer.remaining() < HEADER_SIZE) || (buffer.getLong() != MAGIC) || (buffer.getInt() != VERSION))
+            return -1;
+        var rows = buffer.getInt();
+        if ((rows < 0) || (buffer.getLong() != stamp.size()) || (buffer.getLong() != stamp.lastModifiedTime().toMillis()))
+            return -1;
+        return rows;
+    }
+
+    /**
+     * Atomically replaces a snapshot with one of a journal's contents.
+     * Does nothing if the snapshot would be too large to read back, or snapshots are off.
+     *
+     * @param snapshot The snapshot to write.
+     * @param journal  The attributes of the journal when it held exactly {@code contents}.
+     *                 The journal may be appended to while the snapshot is written, which only makes it stale.
+     * @param contents The contents of the journal.
+     * @throws IOException When writing to the file fails.
+     */
+    static void write(Path snapshot, BasicFileAttributes journal, Snapshot contents) throws IOException {
+        if (!ENABLED)
+            return;
+        var store = contents.rows();
+        var descriptions = encodeStrings(store.descriptions());
+        var vendors = encodeStrings(store.vendors());
+        var rows = store.size();
+
+        var size = HEADER_SIZE + encodedSize(descriptions) + encodedSize(vendors) + ((long) rows * ROW_SIZE);
+        if (size > MAX_SIZE)
+            return;
+        var buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(MAGIC)
+            .putInt(VERSION)
+            .putInt(rows)
+            .putLong(journal.size())
+            .putLong(journal.lastModifiedTime().toMillis())
+            .putInt(contents.fileRows())
+            .putInt(contents.fileTombstones())
+            .putInt(descriptions.length)
+            .putInt(vendors.length);
+        writeStrings(buffer, descriptions);
+        writeStrings(buffer, vendors);
+        for (int row = 0; row < rows; row++)
+            buffer.putLong(store.epochSecond(row));
+        for (int row = 0; row < rows; row++)
+            buffer.putLong(store.cents(row));
+        for (int row = 0; row < rows; row++)
+            buffer.putInt(store.descriptionId(row));
+        for (int row = 0; row < rows; row++)
+            buffer.putInt(store.vendorId(row));
+        buffer.flip();
+
+        var temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+        try {
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer, int count) {
+        if (((long) count * Integer.BYTES) > buffer.remaining())
+            throw new BufferUnderflowException();
+        var strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            var length = buffer.getInt();
+            if ((length < 0) || (length > buffer.remaining()))
+                throw new BufferUnderflowException();
+            var bytes = new byte[length];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static byte[][] encodeStrings(StringDictionary dictionary) {
+        var encoded = new byte[dictionary.size()][];
+        for (int id = 0; id < encoded.length; id++)
+            encoded[id] = dictionary.get(id).getBytes(StandardCharsets.UTF_8);
+        return encoded;
+    }
+
+    private static long encodedSize(byte[][] strings) {
+        return Arrays.stream(strings).mapToLong(bytes -> Integer.BYTES + bytes.length).sum();
+    }
+
+    private static void writeStrings(ByteBuffer buffer, byte[][] strings) {
+        for (var bytes : strings)
+            buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static boolean inRange(int[] ids, int count) {
+        for (var id : ids)
+            if ((id < 0) || (id >= count))
+                return false;
+        return true;
+    }
+
+    /**
+     * The contents of a snapshot.
+     *
+     * @param rows           The transactions which have not been removed, in journal order.
+     * @param fileRows       How many transaction records the journal holds.
+     * @param fileTombstones How many tombstone records the journal holds.
+     */
+    record Snapshot(TransactionStore rows, int fileRows, int fileTombstones) {
+    }
+}
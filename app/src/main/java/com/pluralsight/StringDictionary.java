@@ -0,0 +1,60 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.util.*;
+
+/**
+ * Represents a dictionary which assigns each distinct string a small integer id.
+ * Ids are assigned in order starting from zero and are never reused.
+ * <p>
+ * Only one thread may intern strings at a time, but any number of others can look them up without locking.
+ * The strings are kept in an array which is copied whenever it grows, and published along with the size,
+ * so a reader which has seen an id can always see its string.
+ */
+final class StringDictionary {
+    private static final int INITIAL_CAPACITY = 16;
+    private final Map<String, Integer> ids;
+    private volatile String[] values;
+    private volatile int size;
+
+    StringDictionary() {
+        ids = new HashMap<>();
+        values = new String[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Looks up the id of a string, assigning it a new one if it has not been seen before.
+     *
+     * @param value The string to look up.
+     * @return The id of {@code value}.
+     */
+    int intern(String value) {
+        var id = ids.get(value);
+        if (id != null)
+            return id;
+        var next = size;
+        if (next == values.length)
+            values = Arrays.copyOf(values, next + (next >> 1));
+        values[next] = value;
+        ids.put(value, next);
+        size = next + 1;
+        return next;
+    }
+
+    /**
+     * @param id The id of a string in this dictionary.
+     * @return The string with that id.
+     */
+    String get(int id) {
+        Objects.checkIndex(id, size);
+        return values[id];
+    }
+
+    /**
+     * @return How many distinct strings are in this dictionary.
+     */
+    int size() {
+        return size;
+    }
+}
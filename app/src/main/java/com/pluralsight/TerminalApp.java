@@ -7,14 +7,25 @@ import com.googlecode.lanterna.terminal.*;
 
 import java.io.*;
 
+/**
+ * Runs the ledger's terminal UI. This is the only class which starts Lanterna,
+ * so command line runs never load it.
+ */
 @SuppressWarnings("UtilityClass")
-final class Program {
-    public static void main(String[] args) {
-        if (args.length < 1) System.out.println("No database file provided, using the default...");
-        String location = (args.length < 1) ? "Transactions.csv" : args[0];
+final class TerminalApp {
+    private TerminalApp() {
+    }
 
+    /**
+     * Shows the home view until the user exits.
+     * A single file is loaded progressively, while a directory of months is loaded a month at a time as it is needed.
+     *
+     * @param location The database file or directory to open.
+     */
+    static void run(String location) {
+        var file = new File(location);
         try (var screen = new DefaultTerminalFactory().createScreen();
-             var db = new TransactionDatabase(new File(location))
+             var db = new TransactionDatabase(file, !file.isDirectory(), DurabilityPolicy.fromSystemProperty())
         ) {
             screen.startScreen();
 
@@ -0,0 +1,12 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+/**
+ * The count and total of some transactions.
+ *
+ * @param count How many transactions there are.
+ * @param cents How much money they exchanged altogether, in cents.
+ */
+record Totals(long count, long cents) {
+}
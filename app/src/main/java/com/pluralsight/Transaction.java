@@ -2,6 +2,7 @@
 
 package com.pluralsight;
 
+import java.nio.charset.*;
 import java.time.*;
 import java.time.format.*;
 import java.util.*;
@@ -25,6 +26,18 @@ record Transaction(LocalDateTime dateTime, String description, String vendor, do
         if ((csv == null) || csv.isEmpty())
             return Optional.empty();
 
+        var bytes = csv.getBytes(StandardCharsets.UTF_8);
+        var parser = new RowParser(StandardCharsets.UTF_8, 0);
+        if (parser.parse(bytes, 0, bytes.length))
+            return Optional.of(parser.transaction());
+        return deserializeSlowly(csv);
+    }
+
+    /**
+     * Deserializes a row of CSV in any form that {@link RowParser} does not handle,
+     * such as fractional seconds or amounts written with an exponent.
+     */
+    private static Optional<Transaction> deserializeSlowly(String csv) {
         String[] tokens = csv.split(",");
         if (tokens.length != 4)
             return Optional.empty();
@@ -0,0 +1,1550 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * Represents a database of {@link Transaction}s backed by a file, or by a directory with one file per month.
+ * Each file is treated as an append-only journal: new transactions are appended to it as single records,
+ * removals are appended as tombstone records, and it is only rewritten in full by {@link #compact()}.
+ * Records are queued in memory and written in batches by a single writer thread.
+ * A {@link DurabilityPolicy} bounds how long they may wait.
+ * Compaction runs on a thread of its own, so records keep being written while a file is rewritten.
+ * <p>
+ * Every transaction is identified by a row number which stays the same for the lifetime of the database object.
+ * Rows are kept in a columnar {@link TransactionStore}, indexed by date, description, and vendor,
+ * and rolled up into daily and monthly totals.
+ * <p>
+ * A binary snapshot of each file is kept next to it and loaded instead of the file while it is up to date.
+ * It is rewritten after the file has to be parsed, and when the database is closed after any changes.
+ * <p>
+ * When the file has to be parsed, the database can open progressively: it becomes readable as soon as the first chunk
+ * of the file is in, and the rest is loaded in the background. Load listeners are told as each chunk arrives.
+ * Mutations wait for loading to finish.
+ * <p>
+ * In a directory, each month's transactions go in a file named for the month, such as {@code 2024-03.csv}.
+ * A mutation only ever touches its own month's file. Months are loaded the first time something needs them,
+ * so queries and totals bounded by date only ever read the months they cover.
+ * Opening progressively loads every month in the background instead, oldest first.
+ * Rows are always returned in the order of their files: months in date order, then rows in the order of the file,
+ * whatever order the months happened to be loaded in.
+ * <p>
+ * Any number of threads can read while one thread at a time mutates, and reads never take a lock the writer needs.
+ * Rows, their text, the date and text indexes, and the set of removed rows are only ever appended to, and each is
+ * published so that a reader which sees a row number also sees everything about it.
+ * The daily and monthly totals are read optimistically, and read again if a mutation changed them in the meantime.
+ * Streams and iterators cover the rows which existed when they were created; rows removed while they are
+ * being consumed may or may not be skipped.
+ */
+final class TransactionDatabase implements Closeable, Iterable<Transaction> {
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+    private static final String TOMBSTONE_PREFIX = "#deleted,";
+    private static final String PARTITION_SUFFIX = ".csv";
+    private static final int COMPACTION_MINIMUM = 16;
+    private static final double COMPACTION_RATIO = 0.25;
+    /**
+     * How many rows may lie between the rows of a date range, per row in it, before it is checked row by row
+     * rather than scanned.
+     */
+    private static final int SCAN_DENSITY = 4;
+    private static final int OPTIMISTIC_READS = 4;
+    private static final long SECONDS_PER_DAY = 86_400;
+    private final File filePath;
+    private final Partition whole;
+    private final NavigableMap<YearMonth, Partition> months;
+    private final ScheduledThreadPoolExecutor writer;
+    private final ExecutorService compactor;
+    private final DurabilityPolicy durability;
+    private TransactionStore store;
+    private DateIndex dateIndex;
+    private MonthlyRollup monthlyRollup;
+    private DailyTotals dailyTotals;
+    private TrigramIndex descriptionIndex, vendorIndex;
+    private final ConcurrentBitSet deleted;
+    private final StampedLock totalsLock;
+    private final CountDownLatch loaded;
+    private final List<Runnable> loadListeners;
+    private Thread loader;
+    private volatile int loadProgress;
+    private volatile IOException loadFailure;
+    private long loadedBytes, totalBytes;
+    private int pendingRecords;
+    private Future<?> pendingFlush;
+    private volatile int removedRows;
+    /**
+     * Whether a row has been added for an earlier month than a row before it, so row numbers are no longer in the order
+     * of the files.
+     */
+    private volatile boolean outOfOrder;
+    private long latestMonthStart, latestMonthEnd;
+    private final AtomicBoolean closed;
+
+    /**
+     * Creates a new database backed by the specified file, loading all of it up front.
+     *
+     * @param filePath The file to use as the database.
+     * @throws IOException           When reading from the file fails.
+     * @throws FileNotFoundException When {@code filePath} does not point to a valid file.
+     */
+    TransactionDatabase(File filePath) throws IOException {
+        this(filePath, false);
+    }
+
+    /**
+     * Creates a new database backed by the specified file.
+     *
+     * @param filePath    The file to use as the database.
+     * @param progressive If {@code true}, return as soon as the first chunk of the file is loaded
+     *                    and load the rest in the background.
+     * @throws IOException           When reading from the file fails.
+     * @throws FileNotFoundException When {@code filePath} does not point to a valid file.
+     */
+    TransactionDatabase(File filePath, boolean progressive) throws IOException {
+        this(filePath, progressive, DurabilityPolicy.everyCommit());
+    }
+
+    /**
+     * Creates a new database backed by the specified file, or by the month files in the specified directory.
+     *
+     * @param filePath    The file or directory to use as the database.
+     * @param progressive If {@code true}, return as soon as the first chunk of the file is loaded
+     *                    and load the rest in the background.
+     * @param durability  How long records may wait before they are written to the file.
+     * @throws IOException           When reading from the file fails.
+     * @throws FileNotFoundException When {@code filePath} does not exist.
+     */
+    TransactionDatabase(File filePath, boolean progressive, DurabilityPolicy durability) throws IOException {
+        //noinspection IfCanBeAssertion
+        if (!filePath.exists())
+            throw new FileNotFoundException(filePath.getAbsolutePath());
+        this.filePath = filePath;
+        if (filePath.isDirectory()) {
+            whole = null;
+            months = findPartitions(filePath.toPath());
+        } else {
+            whole = new Partition(filePath.toPath(), null);
+            months = null;
+        }
+        store = new TransactionStore();
+        dateIndex = new DateIndex();
+        monthlyRollup = new MonthlyRollup();
+        dailyTotals = new DailyTotals();
+        deleted = new ConcurrentBitSet();
+        totalsLock = new StampedLock();
+        loaded = new CountDownLatch(1);
+        closed = new AtomicBoolean();
+        latestMonthStart = Long.MIN_VALUE;
+        latestMonthEnd = Long.MIN_VALUE;
+        loadListeners = new CopyOnWriteArrayList<>();
+        this.durability = durability;
+        writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var thread = new Thread(runnable, "ledger-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "ledger-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        readFromDisk(progressive);
+    }
+
+    /**
+     * Stops any background loading, writes every queued record, and waits for any background compaction to finish,
+     * then closes the journals. Does nothing if already closed.
+     *
+     * @throws IOException When closing the file fails, or some queued records could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true))
+            return;
+        if (loader != null) {
+            loader.interrupt();
+            try {
+                loader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        compactor.shutdown();
+        awaitTermination(compactor);
+        var lastFlush = writer.submit(this::flush);
+        writer.shutdown();
+        awaitTermination(writer);
+        var snapshots = new LinkedHashMap<Partition, SnapshotFile.Snapshot>();
+        synchronized (this) {
+            for (var partition : partitions()) {
+                if (partition.journal != null)
+                    partition.journal.close();
+                // A snapshot with records the journal lacks would be loaded as if they had been written
+                if (partition.snapshotStale && partition.loaded && (partition.pendingRecords == 0)) {
+                    snapshots.put(partition, snapshotOf(partition));
+                    partition.snapshotStale = false;
+                }
+            }
+        }
+        for (var entry : snapshots.entrySet()) {
+            var partition = entry.getKey();
+            try {
+                writeSnapshot(partition, entry.getValue(),
+                    Files.readAttributes(partition.path, BasicFileAttributes.class));
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        try {
+            awaitFlush(lastFlush);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Blocks until an executor which has been shut down has finished every task it was given,
+     * since closing the journals any sooner could lose records.
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        var interrupted = false;
+        while (true)
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES))
+                    break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    @Override
+    public Iterator<Transaction> iterator() {
+        return rows().mapToObj(store::get).iterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super Transaction> action) {
+        rows().mapToObj(store::get).forEachOrdered(action);
+    }
+
+    @Override
+    public Spliterator<Transaction> spliterator() {
+        return rows().mapToObj(store::get).spliterator();
+    }
+
+    /**
+     * @return The row numbers of every transaction in the database, in order.
+     */
+    IntStream rows() {
+        ensureLoaded(null, null);
+        return inOrder(loadedRows());
+    }
+
+    private IntStream loadedRows() {
+        return IntStream.range(0, store.size()).filter(row -> !deleted.get(row));
+    }
+
+    /**
+     * Finds the transactions within a date range, without looking at any rows outside it.
+     * Either bound can be {@code null} to leave that side open.
+     *
+     * @param after  The transactions must have occurred on or after this date.
+     * @param before The transactions must have occurred strictly before this date.
+     * @return The row numbers of the matching transactions, in order.
+     */
+    IntStream rows(LocalDate after, LocalDate before) {
+        if ((after == null) && (before == null))
+            return rows();
+        ensureLoaded(after, before);
+        return inOrder(IntStream.of(dateSlice(after, before)).filter(row -> !deleted.get(row)));
+    }
+
+    private int[] dateSlice(LocalDate after, LocalDate before) {
+        return dateIndex.rows(after, before);
+    }
+
+    /**
+     * Finds the transactions which pass a filter, only looking at rows within its date range.
+     *
+     * @param filter The filter to apply.
+     * @return The row numbers of the matching transactions, in order.
+     * @throws CancellationException If the calling thread is interrupted while finding or consuming the stream.
+     */
+    IntStream rows(FilterOptions filter) {
+        IntStream rows;
+        IntPredicate predicate;
+        if ((filter.after() == null) && (filter.before() == null)) {
+            ensureLoaded(null, null);
+            rows = loadedRows();
+            predicate = filter.compile(this, 0, store.size());
+        } else {
+            ensureLoaded(filter.after(), filter.before());
+            var slice = dateSlice(filter.after(), filter.before());
+            rows = IntStream.of(slice).filter(row -> !deleted.get(row));
+            var start = (slice.length == 0) ? 0 : slice[0];
+            var end = (slice.length == 0) ? 0 : (slice[slice.length - 1] + 1);
+            // A slice scattered across the store is cheaper to check row by row than to scan
+            if (((long) slice.length * SCAN_DENSITY) < (end - start))
+                end = start;
+            predicate = filter.compile(this, start, end);
+        }
+        return inOrder(rows
+            .filter(TransactionDatabase::checkInterrupted)
+            .filter(predicate));
+    }
+
+    /**
+     * Narrows down an earlier result to the transactions which pass a filter at least as strict as the one
+     * which found it. Rows added since then are checked too, so the result is the same as {@link #rows(FilterOptions)}.
+     *
+     * @param filter   The filter to apply.
+     * @param previous The row numbers of the earlier result, in order.
+     * @param limit    The value of {@link #rowLimit()} when the earlier result was found.
+     * @return The row numbers of the matching transactions, in order.
+     * @throws CancellationException If the calling thread is interrupted while finding or consuming the stream.
+     */
+    IntStream refine(FilterOptions filter, int[] previous, int limit) {
+        var end = store.size();
+        return inOrder(IntStream.concat(IntStream.of(previous), IntStream.range(limit, end))
+            .filter(row -> !deleted.get(row))
+            .filter(TransactionDatabase::checkInterrupted)
+            .filter(filter.compile(this, limit, end)));
+    }
+
+    /**
+     * Puts rows in the order of their files. Row numbers follow it until a month is loaded or added to
+     * after a later one, and from then on the rows are sorted by month, then by row number.
+     *
+     * @param rows Row numbers in ascending order.
+     * @return The same rows, in order.
+     */
+    private IntStream inOrder(IntStream rows) {
+        if (!outOfOrder)
+            return rows;
+        var keys = rows.mapToLong(row -> ((long) monthKey(store.epochSecond(row)) << Integer.SIZE) | row).toArray();
+        Arrays.parallelSort(keys);
+        return Arrays.stream(keys).mapToInt(key -> (int) key);
+    }
+
+    /**
+     * @return A number which orders months, clamped so that it fits in an {@code int}.
+     */
+    private static int monthKey(long epochSecond) {
+        var date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+        var month = (date.getYear() * 12L) + date.getMonthValue();
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, month));
+    }
+
+    /**
+     * @return A number higher than every row number currently in use. Rows added later are numbered from here.
+     */
+    int rowLimit() {
+        return store.size();
+    }
+
+    /**
+     * @param needle Text to search for.
+     * @return A predicate which accepts a row when its description contains {@code needle}, ignoring case.
+     */
+    IntPredicate descriptionMatches(String needle) {
+        var matches = descriptionIndex.matcher(needle);
+        return row -> matches.test(store.descriptionId(row));
+    }
+
+    /**
+     * @param needle Text to search for.
+     * @return A predicate which accepts a row when its vendor contains {@code needle}, ignoring case.
+     */
+    IntPredicate vendorMatches(String needle) {
+        var matches = vendorIndex.matcher(needle);
+        return row -> matches.test(store.vendorId(row));
+    }
+
+    /**
+     * Scans the epoch and cents columns of a range of rows for the rows which pass some numeric bounds.
+     * Rows outside the range are checked one at a time instead.
+     *
+     * @param bounds The bounds to check.
+     * @param start  The first row to scan.
+     * @param end    The row just after the last row to scan.
+     * @return A predicate which accepts a row when it passes {@code bounds}.
+     */
+    IntPredicate numericMatches(NumericBounds bounds, int start, int end) {
+        var matches = store.select(bounds, start, end);
+        return row -> ((row >= start) && (row < end)) ? matches.get(row - start)
+                                                      : bounds.test(store.epochSecond(row), store.cents(row));
+    }
+
+    /**
+     * Counts and totals the transactions within a range of whole months without looking at any rows.
+     * Either bound can be {@code null} to leave that side open.
+     *
+     * @param from  The first month of the range.
+     * @param until The month just after the end of the range.
+     * @return The count and total of the transactions in the range.
+     */
+    Totals monthlyTotal(YearMonth from, YearMonth until) {
+        ensureLoaded((from == null) ? null : from.atDay(1), (until == null) ? null : until.atDay(1));
+        return readTotals(() -> monthlyRollup.total(from, until));
+    }
+
+    /**
+     * Aggregates the transactions within a date range in one parallel pass.
+     * Either bound can be {@code null} to leave that side open.
+     *
+     * @param after  The transactions must have occurred on or after this date.
+     * @param before The transactions must have occurred strictly before this date.
+     * @return The aggregates of the matching transactions.
+     */
+    Aggregator.Aggregate aggregate(LocalDate after, LocalDate before) {
+        return Aggregator.aggregate(rows(after, before).toArray(), store::cents);
+    }
+
+    /**
+     * Counts and totals the transactions within a range of days without looking at any rows.
+     * Either bound can be {@code null} to leave that side open.
+     *
+     * @param after  The first day of the range.
+     * @param before The day just after the end of the range.
+     * @return The count and total of the transactions in the range.
+     */
+    Totals dailyTotal(LocalDate after, LocalDate before) {
+        ensureLoaded(after, before);
+        return readTotals(() -> dailyTotals.total(after, before));
+    }
+
+    /**
+     * Reads the daily or monthly totals without blocking mutations, retrying whenever one changes them mid-read.
+     * A read which overlaps a mutation can see the totals half updated, or even fail, so its result only counts
+     * if no mutation started since it began. After a few such retries, the read takes the lock instead,
+     * so a steady stream of mutations cannot starve it.
+     */
+    private Totals readTotals(Supplier<Totals> read) {
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            var stamp = totalsLock.tryOptimisticRead();
+            try {
+                var totals = read.get();
+                if (totalsLock.validate(stamp))
+                    return totals;
+            } catch (RuntimeException e) {
+                if (totalsLock.validate(stamp))
+                    throw e;
+            }
+            Thread.onSpinWait();
+        }
+        var stamp = totalsLock.readLock();
+        try {
+            return read.get();
+        } finally {
+            totalsLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return {@code true} until every chunk of the file has been loaded.
+     */
+    boolean isLoading() {
+        return loaded.getCount() > 0;
+    }
+
+    /**
+     * @return How much of the file has been loaded, as a percentage.
+     */
+    int loadProgress() {
+        return loadProgress;
+    }
+
+    /**
+     * Registers a listener which is run, on the loading thread, after each chunk of the file is loaded
+     * and once more when loading finishes.
+     *
+     * @param listener The listener to add.
+     */
+    void addLoadListener(Runnable listener) {
+        loadListeners.add(listener);
+    }
+
+    /**
+     * @param listener A listener previously passed to {@link #addLoadListener}.
+     */
+    void removeLoadListener(Runnable listener) {
+        loadListeners.remove(listener);
+    }
+
+    /**
+     * @return How many transactions are in the database. In a directory, only months which have been loaded count.
+     */
+    int size() {
+        return store.size() - removedRows;
+    }
+
+    /**
+     * Counts the transactions in every month, including months which have not been loaded yet.
+     * A month with an up-to-date snapshot is counted from the snapshot's header, without loading it.
+     * Any other month is loaded, which writes its snapshot, so this is only slow the first time.
+     * Must not be called on the GUI thread.
+     *
+     * @return How many transactions are in the database.
+     * @throws UncheckedIOException When reading a file fails.
+     */
+    int totalSize() {
+        if ((months == null) || (loader != null))
+            return size();
+        try {
+            for (var partition : months.values())
+                countRows(partition);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            return size() + months.values().stream()
+                .filter(partition -> !partition.loaded)
+                .mapToInt(partition -> partition.unloadedRows)
+                .sum();
+        }
+    }
+
+    /**
+     * Finds how many transactions a month which has not been loaded holds, loading it if its snapshot cannot say.
+     */
+    private void countRows(Partition partition) throws IOException {
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (partition) {
+            if (partition.loaded || (partition.unloadedRows >= 0))
+                return;
+            var count = SnapshotFile.count(partition.snapshotPath(), partition.path);
+            if (count.isPresent())
+                partition.unloadedRows = count.getAsInt();
+            else
+                loadPartition(partition, false);
+        }
+    }
+
+    /**
+     * @param row The row number of a transaction.
+     * @return When the transaction in that row occurred, as seconds since the epoch in UTC.
+     */
+    long epochSecond(int row) {
+        return store.epochSecond(row);
+    }
+
+    /**
+     * @param row The row number of a transaction.
+     * @return How much money the transaction in that row exchanged, in cents.
+     */
+    long cents(int row) {
+        return store.cents(row);
+    }
+
+    /**
+     * @param row The row number of a transaction.
+     * @return The transaction in that row. Removed transactions are still returned.
+     */
+    Transaction getRow(int row) {
+        return store.get(row);
+    }
+
+    /**
+     * Removes a transaction from the database.
+     * This has to search for the transaction; prefer {@link #removeRow(int)} when the row is known.
+     *
+     * @param selectedItem The transaction to remove.
+     * @return {@code true} if the removal was successful.
+     */
+    public boolean removeTransaction(Transaction selectedItem) {
+        return rows(selectedItem.date(), selectedItem.date().plusDays(1))
+            .filter(row -> store.get(row).equals(selectedItem))
+            .findFirst()
+            .stream()
+            .anyMatch(this::removeRow);
+    }
+
+    /**
+     * Removes a transaction from the database by marking its row as deleted.
+     *
+     * @param row The row number of the transaction to remove.
+     * @return {@code true} if the removal was successful.
+     * @throws UncheckedIOException When the durability policy waits for the tombstone, and writing it fails.
+     *                              It stays queued, and is tried again by the next write.
+     */
+    boolean removeRow(int row) {
+        awaitLoaded();
+        Future<?> written;
+        synchronized (this) {
+            if ((row < 0) || (row >= store.size()) || deleted.get(row))
+                return false;
+            var partition = partitionOf(row);
+            markDeleted(row);
+            partition.snapshotStale = true;
+            written = enqueueRecord(partition, TOMBSTONE_PREFIX + store.get(row).serialize());
+            partition.fileTombstones++;
+            scheduleCompactionIfNeeded(partition);
+        }
+        awaitWrite(written);
+        return true;
+    }
+
+    /**
+     * Atomically replaces the file representation of this database with one containing
+     * only the transactions which have not been removed. In a directory, every loaded month with removals is rewritten.
+     *
+     * @throws IOException When writing to the file fails.
+     */
+    void compact() throws IOException {
+        awaitLoaded();
+        try {
+            compactor.submit(() -> {
+                List<Partition> targets;
+                synchronized (this) {
+                    targets = partitions().stream()
+                        .filter(partition -> partition.loaded && ((whole != null) || (partition.fileTombstones > 0)))
+                        .toList();
+                }
+                for (var partition : targets)
+                    compactLoaded(partition);
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compacting ${filePath}");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause)
+                throw cause;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Rewrites a file with the rows in it which have not been removed.
+     * The rows are settled under this object's lock, but written to a temporary file without it, so mutations carry on
+     * in the meantime. Under the lock again, every record queued since then is appended to the temporary file,
+     * which then replaces the real file. Any records still queued are dropped, since the new file already has them.
+     * Must be called on the compactor thread, without holding this object's lock.
+     */
+    private void compactLoaded(Partition partition) throws IOException {
+        int[] live;
+        int fileRows, fileTombstones;
+        synchronized (this) {
+            if (!partition.loaded || (partition.compacting != null))
+                return;
+            live = liveRows(partition).toArray();
+            fileRows = partition.fileRows;
+            fileTombstones = partition.fileTombstones;
+            partition.compacting = new ByteArrayOutputStream();
+        }
+
+        Path temp = null;
+        try {
+            temp = writeRows(partition, live);
+            synchronized (this) {
+                synchronized (partition.journalLock) {
+                    try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        var buffer = ByteBuffer.wrap(partition.compacting.toByteArray());
+                        while (buffer.hasRemaining())
+                            channel.write(buffer);
+                        channel.force(true);
+                    }
+                    partition.journal.close();
+                    try {
+                        replace(temp, partition.path);
+                    } finally {
+                        openJournal(partition);
+                    }
+                    partition.generation++;
+                }
+                pendingRecords -= partition.pendingRecords;
+                partition.pending.reset();
+                partition.pendingRecords = 0;
+                partition.fileRows = live.length + (partition.fileRows - fileRows);
+                partition.fileTombstones = partition.fileTombstones - fileTombstones;
+                partition.snapshotStale = true;
+            }
+        } finally {
+            synchronized (this) {
+                partition.compacting = null;
+            }
+            if (temp != null)
+                Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Updates the in-memory representation of this database to match the file representation,
+     * replaying any tombstones against the rows they remove, then opens the journal.
+     * In a directory, months are left to be loaded when they are needed, unless loading is progressive.
+     *
+     * @param progressive If {@code true}, only wait for the first chunk of the file and load the rest in the background.
+     * @throws IOException When reading from the file fails.
+     */
+    private void readFromDisk(boolean progressive) throws IOException {
+        var snapshot = (whole == null) ? Optional.<SnapshotFile.Snapshot>empty()
+                                       : SnapshotFile.read(whole.snapshotPath(), whole.path);
+        if (snapshot.isPresent())
+            store = snapshot.get().rows();
+        descriptionIndex = new TrigramIndex(store.descriptions());
+        vendorIndex = new TrigramIndex(store.vendors());
+        indexRows(0);
+
+        if (snapshot.isPresent()) {
+            whole.fileRows = snapshot.get().fileRows();
+            whole.fileTombstones = snapshot.get().fileTombstones();
+            finishLoading(whole);
+            finishLoading();
+        } else if (!progressive) {
+            if (whole != null)
+                loadPartition(whole, false);
+            finishLoading();
+        } else {
+            var partitions = partitions();
+            for (var partition : partitions)
+                totalBytes += Files.size(partition.path);
+            var firstChunk = new CountDownLatch(1);
+            Runnable onFirstChunk = firstChunk::countDown;
+            addLoadListener(onFirstChunk);
+            loader = new Thread(() -> {
+                try {
+                    for (var partition : partitions)
+                        loadPartition(partition, true);
+                } catch (InterruptedIOException e) {
+                    // Closed while loading.
+                } catch (IOException e) {
+                    loadFailure = e;
+                    System.err.println(e.getMessage());
+                } finally {
+                    finishLoading();
+                }
+            }, "ledger-loader");
+            loader.setDaemon(true);
+            loader.start();
+            try {
+                firstChunk.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            removeLoadListener(onFirstChunk);
+            if (loadFailure != null) {
+                close();
+                throw loadFailure;
+            }
+        }
+    }
+
+    /**
+     * Loads every month in a date range which has not been loaded yet. Does nothing for a single file,
+     * or when loading progressively, since then everything is already loaded or being loaded.
+     * Must not be called while holding this object's lock.
+     * Either bound can be {@code null} to leave that side open.
+     *
+     * @param after  The first day of the range.
+     * @param before The day just after the end of the range.
+     * @throws UncheckedIOException When reading a file fails.
+     */
+    private void ensureLoaded(LocalDate after, LocalDate before) {
+        if ((months == null) || (loader != null))
+            return;
+        var cold = months.values().stream()
+            .filter(partition -> !partition.loaded && partition.overlaps(after, before))
+            .toList();
+        try {
+            for (var partition : cold)
+                loadPartition(partition, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads a file from its snapshot or its journal, unless it is already loaded, then opens its journal.
+     * Only one thread loads a given file; any other waits for it to finish.
+     * A month is read in full before any of its rows are made visible, so a load which fails or is interrupted
+     * leaves nothing behind, and can simply be tried again.
+     *
+     * @param partition The file to load.
+     * @param report    Whether to update the load progress and tell load listeners as each chunk arrives.
+     * @throws IOException When reading from the file fails.
+     */
+    private void loadPartition(Partition partition, boolean report) throws IOException {
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (partition) {
+            if (partition.loaded)
+                return;
+            if (partition == whole) {
+                readJournal(partition, report);
+                finishLoading(partition);
+                return;
+            }
+            var snapshot = SnapshotFile.read(partition.snapshotPath(), partition.path);
+            var contents = snapshot.isPresent() ? snapshot.get() : parseJournal(partition, report);
+            if (snapshot.isPresent() && report) {
+                var size = Files.size(partition.path);
+                reportProgress(size);
+                loadedBytes += size;
+            }
+            // Nothing is appended to the journal until the month is published, so it still matches what was read
+            var stamp = Files.readAttributes(partition.path, BasicFileAttributes.class);
+            openJournal(partition);
+            synchronized (this) {
+                var first = store.size();
+                store.addAll(contents.rows());
+                indexRows(first);
+                partition.assign(first, store.size());
+                partition.fileRows = contents.fileRows();
+                partition.fileTombstones = contents.fileTombstones();
+                partition.loaded = true;
+                scheduleCompactionIfNeeded(partition);
+            }
+            if (snapshot.isEmpty())
+                writeSnapshot(partition, contents, stamp);
+        }
+    }
+
+    /**
+     * Parses a month's file without making any of it visible.
+     *
+     * @param partition The file to parse.
+     * @param report    Whether to update the load progress and tell load listeners as each chunk arrives.
+     * @return The rows in the file which have not been removed, with the counts of its records.
+     * @throws IOException When reading from the file fails.
+     */
+    private SnapshotFile.Snapshot parseJournal(Partition partition, boolean report) throws IOException {
+        var rows = new TransactionStore();
+        var tombstones = new TransactionStore();
+        JournalReader.read(partition.path, CHARSET, TOMBSTONE_PREFIX, (chunk, read, size) -> {
+            rows.addAll(chunk.rows());
+            tombstones.addAll(chunk.tombstones());
+            if (report) {
+                reportProgress(read);
+                if (read == size)
+                    loadedBytes += size;
+            }
+        });
+        var fileRows = rows.size();
+        var live = (tombstones.size() > 0) ? rows.without(removedBy(tombstones, rows)) : rows;
+        return new SnapshotFile.Snapshot(live, fileRows, tombstones.size());
+    }
+
+    /**
+     * Parses the whole database chunk by chunk, making each chunk's rows visible as soon as it is in,
+     * then replays the tombstones once every row is.
+     *
+     * @param partition The file to parse.
+     * @param report    Whether to update the load progress and tell load listeners as each chunk arrives.
+     * @throws IOException When reading from the file fails.
+     */
+    private void readJournal(Partition partition, boolean report) throws IOException {
+        var tombstones = new TransactionStore();
+        var fileRows = new int[1];
+        JournalReader.read(partition.path, CHARSET, TOMBSTONE_PREFIX, (chunk, read, size) -> {
+            synchronized (this) {
+                var start = store.size();
+                store.addAll(chunk.rows());
+                indexRows(start);
+                partition.assign(start, store.size());
+                tombstones.addAll(chunk.tombstones());
+                fileRows[0] += chunk.rows().size();
+            }
+            if (report) {
+                reportProgress(read);
+                if (read == size)
+                    loadedBytes += size;
+            }
+        });
+        SnapshotFile.Snapshot contents;
+        synchronized (this) {
+            partition.fileRows = fileRows[0];
+            partition.fileTombstones = tombstones.size();
+            if (tombstones.size() > 0)
+                removedBy(tombstones, store).stream().forEach(this::markDeleted);
+            contents = snapshotOf(partition);
+        }
+        // Mutations wait for the load to finish, so neither the rows nor the journal change while this runs
+        writeSnapshot(partition, contents, Files.readAttributes(partition.path, BasicFileAttributes.class));
+    }
+
+    /**
+     * Sets the load progress from how much of the file being loaded has been read, and tells the load listeners.
+     */
+    private void reportProgress(long read) {
+        loadProgress = (int) (((loadedBytes + read) * 100) / Math.max(totalBytes, 1));
+        loadListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Opens the journal of a file which has been loaded, then lets it be mutated.
+     *
+     * @param partition The file which has been loaded.
+     * @throws IOException When opening the file fails.
+     */
+    private void finishLoading(Partition partition) throws IOException {
+        synchronized (this) {
+            openJournal(partition);
+            partition.loaded = true;
+            scheduleCompactionIfNeeded(partition);
+        }
+    }
+
+    /**
+     * Lets mutations through.
+     */
+    private void finishLoading() {
+        loadProgress = 100;
+        loaded.countDown();
+        loadListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Indexes every row from some row onwards.
+     *
+     * @param first The first row to index.
+     */
+    private void indexRows(int first) {
+        var stamp = totalsLock.writeLock();
+        try {
+            for (int row = first; row < store.size(); row++) {
+                if (months != null)
+                    trackOrder(store.epochSecond(row));
+                dateIndex.add(row, store.epochSecond(row));
+                monthlyRollup.add(store.epochSecond(row), store.cents(row));
+                dailyTotals.add(store.epochSecond(row), store.cents(row));
+            }
+        } finally {
+            totalsLock.unlockWrite(stamp);
+        }
+        descriptionIndex.update();
+        vendorIndex.update();
+    }
+
+    /**
+     * Notes when a new row belongs to an earlier month than some row before it.
+     */
+    private void trackOrder(long epochSecond) {
+        if (epochSecond < latestMonthStart)
+            outOfOrder = true;
+        else if (epochSecond >= latestMonthEnd) {
+            var month = YearMonth.from(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+            latestMonthStart = month.atDay(1).toEpochDay() * SECONDS_PER_DAY;
+            latestMonthEnd = (month.atEndOfMonth().toEpochDay() + 1) * SECONDS_PER_DAY;
+        }
+    }
+
+    /**
+     * Blocks until every chunk of the file has been loaded.
+     */
+    private void awaitLoaded() {
+        var interrupted = false;
+        while (true)
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Marks a row as removed and takes it out of the totals. Its record is left for the caller to write.
+     */
+    private void markDeleted(int row) {
+        deleted.set(row);
+        removedRows = removedRows + 1;
+        var stamp = totalsLock.writeLock();
+        try {
+            monthlyRollup.remove(store.epochSecond(row), store.cents(row));
+            dailyTotals.remove(store.epochSecond(row), store.cents(row));
+        } finally {
+            totalsLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the rows removed by tombstones. Each tombstone removes the first row equal to it which no earlier
+     * tombstone removed.
+     *
+     * @param tombstones The tombstones read from a file.
+     * @param rows       The rows read from that file, in order.
+     * @return The rows which have been removed.
+     */
+    private static BitSet removedBy(TransactionStore tombstones, TransactionStore rows) {
+        var remaining = IntStream.range(0, tombstones.size())
+            .mapToObj(tombstones::get)
+            .collect(Collectors.groupingBy(Function.identity(), HashMap::new, Collectors.counting()));
+        var removed = new BitSet();
+        for (int row = 0; (row < rows.size()) && !remaining.isEmpty(); row++) {
+            var transaction = rows.get(row);
+            var count = remaining.get(transaction);
+            if (count == null)
+                continue;
+            if (count == 1)
+                remaining.remove(transaction);
+            else
+                remaining.put(transaction, count - 1);
+            removed.set(row);
+        }
+        return removed;
+    }
+
+    /**
+     * Writes some rows to a temporary file next to a file.
+     *
+     * @param partition The file the rows belong to.
+     * @param rows      The rows to write, in order.
+     * @return The temporary file.
+     * @throws IOException When writing to the file fails.
+     */
+    private Path writeRows(Partition partition, int[] rows) throws IOException {
+        assertGoodFile(partition);
+        var temp = partition.path.resolveSibling(partition.path.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            var writer = new RowWriter(store, channel, CHARSET);
+            for (var row : rows)
+                writer.write(row);
+            writer.flush();
+            channel.force(true);
+        }
+        return temp;
+    }
+
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return The rows in a file which have not been removed, in order.
+     */
+    private IntStream liveRows(Partition partition) {
+        return ((partition.rows == null) ? IntStream.range(0, store.size()) : partition.rows.stream())
+            .filter(row -> !deleted.get(row));
+    }
+
+    /**
+     * Opens a file for appending, noting whether its last line still needs to be terminated.
+     *
+     * @throws IOException When opening the file fails.
+     */
+    private static void openJournal(Partition partition) throws IOException {
+        assertGoodFile(partition);
+        partition.journal = FileChannel.open(partition.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        var size = partition.journal.size();
+        if (size == 0) {
+            partition.needsSeparator = false;
+            return;
+        }
+        try (var reader = FileChannel.open(partition.path, StandardOpenOption.READ)) {
+            var last = ByteBuffer.allocate(1);
+            reader.read(last, size - 1);
+            partition.needsSeparator = last.get(0) != '\n';
+        }
+    }
+
+    /**
+     * Queues a single record to be appended to the end of a file, scheduling a flush as the durability policy requires.
+     *
+     * @param partition The file to append to.
+     * @param record    The record to append, without a line terminator.
+     * @return A future which completes once the record has been forced to the storage device,
+     *     or {@code null} if no flush is scheduled yet.
+     */
+    private Future<?> enqueueRecord(Partition partition, String record) {
+        queueLine(partition, record);
+        if (pendingRecords >= durability.maxRecords()) {
+            pendingFlush = null;
+            return writer.submit(this::flush);
+        }
+        if ((pendingFlush == null) && (durability.maxDelayMillis() < Long.MAX_VALUE))
+            pendingFlush = writer.schedule(this::flush, durability.maxDelayMillis(), TimeUnit.MILLISECONDS);
+        return pendingFlush;
+    }
+
+    private void queueLine(Partition partition, String record) {
+        var line = (record + System.lineSeparator()).getBytes(CHARSET);
+        if (partition.needsSeparator)
+            partition.pending.writeBytes(System.lineSeparator().getBytes(CHARSET));
+        partition.pending.writeBytes(line);
+        if (partition.compacting != null)
+            partition.compacting.writeBytes(line);
+        partition.needsSeparator = false;
+        partition.pendingRecords++;
+        pendingRecords++;
+    }
+
+    /**
+     * Queues every row from {@code first} on to be appended to the end of its file, without scheduling a flush.
+     */
+    private void queueRows(int first) {
+        var writers = new HashMap<Partition, RowWriter>();
+        var starts = new HashMap<Partition, Integer>();
+        try {
+            for (int row = first; row < store.size(); row++) {
+                var partition = partitionFor(store.epochSecond(row));
+                partition.assign(row, row + 1);
+                var rows = writers.get(partition);
+                if (rows == null) {
+                    if (partition.needsSeparator)
+                        partition.pending.writeBytes(System.lineSeparator().getBytes(CHARSET));
+                    partition.needsSeparator = false;
+                    rows = new RowWriter(store, Channels.newChannel(partition.pending), CHARSET);
+                    writers.put(partition, rows);
+                    starts.put(partition, partition.pending.size());
+                }
+                rows.write(row);
+                partition.pendingRecords++;
+                partition.fileRows++;
+                partition.snapshotStale = true;
+            }
+            for (var rows : writers.values())
+                rows.flush();
+            starts.forEach((partition, start) -> {
+                if (partition.compacting != null)
+                    partition.compacting.write(partition.pending.toByteArray(), start, partition.pending.size() - start);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing to memory failed", e);
+        }
+        pendingRecords += store.size() - first;
+    }
+
+    /**
+     * Appends every queued record to the end of its file in one write per file and forces them to the storage device.
+     * Records for a file which has been rewritten since they were taken are skipped, since they are in it already.
+     * Whatever could not be written goes back at the head of its file's queue, for the next flush to try again.
+     * Must be called on the writer thread.
+     *
+     * @throws UncheckedIOException When writing to any file fails, after every other file has been written.
+     */
+    private void flush() {
+        var batches = new LinkedHashMap<Partition, Batch>();
+        synchronized (this) {
+            pendingFlush = null;
+            if (pendingRecords == 0)
+                return;
+            for (var partition : partitions()) {
+                if (partition.pendingRecords == 0)
+                    continue;
+                batches.put(partition,
+                    new Batch(partition.pending.toByteArray(), partition.pendingRecords, partition.generation));
+                partition.pending.reset();
+                partition.pendingRecords = 0;
+            }
+            pendingRecords = 0;
+        }
+        IOException failure = null;
+        for (var entry : batches.entrySet()) {
+            var partition = entry.getKey();
+            var batch = entry.getValue();
+            var written = 0;
+            try {
+                if (partition.journal == null)
+                    throw new IOException("Not writing to ${partition.path}, since it failed to load");
+                //noinspection SynchronizationOnLocalVariableOrMethodParameter
+                synchronized (partition.journalLock) {
+                    if (partition.generation != batch.generation())
+                        continue;
+                    var buffer = ByteBuffer.wrap(batch.bytes());
+                    try {
+                        while (buffer.hasRemaining())
+                            partition.journal.write(buffer);
+                    } finally {
+                        written = buffer.position();
+                    }
+                    partition.journal.force(false);
+                }
+            } catch (IOException e) {
+                requeue(partition, batch, written);
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+    }
+
+    /**
+     * Puts the part of a batch which was not written back at the head of its file's queue,
+     * unless the file has been rewritten since, in which case the new file has it already.
+     *
+     * @param written How many bytes from the start of the batch did reach the file.
+     */
+    private synchronized void requeue(Partition partition, Batch batch, int written) {
+        if (partition.generation != batch.generation())
+            return;
+        var unwritten = Arrays.copyOfRange(batch.bytes(), written, batch.bytes().length);
+        var records = (written == 0) ? batch.records() : countLines(unwritten);
+        var queued = partition.pending.toByteArray();
+        partition.pending.reset();
+        partition.pending.writeBytes(unwritten);
+        partition.pending.writeBytes(queued);
+        partition.pendingRecords += records;
+        pendingRecords += records;
+    }
+
+    private static int countLines(byte[] bytes) {
+        var lines = 0;
+        for (var b : bytes)
+            if (b == '\n')
+                lines++;
+        return lines;
+    }
+
+    /**
+     * Records taken from a file's queue by {@link #flush()}.
+     *
+     * @param bytes      The records.
+     * @param records    How many records there are.
+     * @param generation How many times the file had been rewritten when they were taken.
+     */
+    private record Batch(byte[] bytes, int records, int generation) {
+    }
+
+    /**
+     * Waits for a record to be written, if the durability policy says mutations should.
+     *
+     * @throws UncheckedIOException When writing the record fails.
+     */
+    private void awaitWrite(Future<?> written) {
+        if (durability.synchronous() && (written != null))
+            awaitFlush(written);
+    }
+
+    /**
+     * Waits for a flush to finish.
+     *
+     * @throws UncheckedIOException When it failed to write some records, which are still queued.
+     */
+    private static void awaitFlush(Future<?> written) {
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause)
+                throw new UncheckedIOException(cause.getCause());
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+    }
+
+    /**
+     * Compacts a file in the background once tombstones make up too much of it.
+     */
+    private void scheduleCompactionIfNeeded(Partition partition) {
+        if (partition.compactionPending
+            || (partition.fileTombstones < COMPACTION_MINIMUM)
+            || (partition.fileTombstones < (partition.fileRows * COMPACTION_RATIO)))
+            return;
+        partition.compactionPending = true;
+        compactor.execute(() -> {
+            synchronized (this) {
+                partition.compactionPending = false;
+            }
+            try {
+                compactLoaded(partition);
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Imports every transaction in a file with the same format as the database's own.
+     * The file is parsed and validated in parallel chunks, then transactions which are already in the database,
+     * or which appear earlier in the file, are skipped. The rest are added and written to the file in one batch,
+     * which is on the storage device by the time this returns, whatever the durability policy.
+     * The database is only locked to add the batch: it is checked for duplicates beforehand,
+     * so a transaction removed in the meantime still counts as one.
+     *
+     * @param source The file to import.
+     * @return How many transactions were imported, skipped, and rejected.
+     * @throws IOException When reading from {@code source} fails, or writing the batch fails.
+     *                     If writing fails, the transactions are still added, and stay queued for the next write.
+     */
+    ImportResult importTransactions(Path source) throws IOException {
+        var start = System.nanoTime();
+        var contents = JournalReader.read(source, CHARSET, TOMBSTONE_PREFIX, TransactionDatabase::isImportable);
+        var batch = contents.rows();
+        var rejected = contents.rejected() + contents.tombstones().size();
+
+        awaitLoaded();
+        ensureLoaded(null, null);
+        var checked = store.size();
+        var seen = IntStream.range(0, checked)
+            .parallel()
+            .filter(row -> !deleted.get(row))
+            .mapToObj(store::get)
+            .collect(Collectors.toCollection(HashSet::new));
+        Future<?> written;
+        int imported;
+        synchronized (this) {
+            for (int row = checked; row < store.size(); row++)
+                if (!deleted.get(row))
+                    seen.add(store.get(row));
+            var duplicates = new BitSet(batch.size());
+            for (int row = 0; row < batch.size(); row++)
+                if (!seen.add(batch.get(row)))
+                    duplicates.set(row);
+
+            var first = store.size();
+            store.addAll(duplicates.isEmpty() ? batch : batch.without(duplicates));
+            imported = store.size() - first;
+            if (imported == 0)
+                return new ImportResult(0, batch.size(), rejected, System.nanoTime() - start);
+            indexRows(first);
+            queueRows(first);
+            pendingFlush = null;
+            written = writer.submit(this::flush);
+        }
+        try {
+            awaitFlush(written);
+        } catch (UncheckedIOException e) {
+            throw new IOException("Writing $imported imported transactions failed", e.getCause());
+        }
+        return new ImportResult(imported, batch.size() - imported, rejected, System.nanoTime() - start);
+    }
+
+    private static boolean isImportable(Transaction transaction) {
+        return Double.isFinite(transaction.amount())
+               && !transaction.description().isBlank()
+               && !transaction.vendor().isBlank();
+    }
+
+    /**
+     * Adds a transaction to the database.
+     *
+     * @param transaction The transaction to add.
+     * @throws UncheckedIOException When the durability policy waits for the record, and writing it fails.
+     *                              It stays queued, and is tried again by the next write.
+     */
+    void addTransaction(Transaction transaction) {
+        awaitLoaded();
+        var date = transaction.date();
+        ensureLoaded(date, date.plusDays(1));
+        Future<?> written;
+        synchronized (this) {
+            var row = store.add(transaction);
+            var partition = partitionFor(store.epochSecond(row));
+            partition.assign(row, row + 1);
+            partition.snapshotStale = true;
+            indexRows(row);
+            // The store drops fractions of a second, so its row is written rather than the transaction as given,
+            // and a tombstone taken from the row later matches the record
+            written = enqueueRecord(partition, store.get(row).serialize());
+            partition.fileRows++;
+        }
+        awaitWrite(written);
+    }
+
+    private static boolean checkInterrupted(int row) {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException();
+        return true;
+    }
+
+    /**
+     * @return Every file of this database, in order. In a directory, months are in date order.
+     */
+    private Collection<Partition> partitions() {
+        return (whole != null) ? List.of(whole) : List.copyOf(months.values());
+    }
+
+    /**
+     * Finds the file a new row belongs in, creating it if it is the first row for its month.
+     * Must be called while holding this object's lock.
+     *
+     * @param epochSecond When the row's transaction occurred.
+     * @return The file the row should be written to.
+     * @throws UncheckedIOException When creating the file fails.
+     */
+    private Partition partitionFor(long epochSecond) {
+        if (whole != null)
+            return whole;
+        var month = YearMonth.from(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+        var partition = months.get(month);
+        if (partition != null)
+            return partition;
+
+        partition = new Partition(filePath.toPath().resolve(month + PARTITION_SUFFIX), month);
+        try {
+            Files.createFile(partition.path);
+            openJournal(partition);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        partition.loaded = true;
+        months.put(month, partition);
+        return partition;
+    }
+
+    /**
+     * Finds the file an existing row was read from or written to.
+     * Must be called while holding this object's lock.
+     */
+    private Partition partitionOf(int row) {
+        if (whole != null)
+            return whole;
+        var month = YearMonth.from(LocalDateTime.ofEpochSecond(store.epochSecond(row), 0, ZoneOffset.UTC));
+        var likely = months.get(month);
+        if ((likely != null) && likely.contains(row))
+            return likely;
+        // A file edited by hand may hold rows from other months.
+        return months.values().stream().filter(partition -> partition.contains(row)).findFirst().orElseThrow();
+    }
+
+    /**
+     * Finds the month files in a directory. Files with other names are ignored.
+     */
+    private static NavigableMap<YearMonth, Partition> findPartitions(Path directory) throws IOException {
+        var partitions = new ConcurrentSkipListMap<YearMonth, Partition>();
+        try (var files = Files.newDirectoryStream(directory, "*" + PARTITION_SUFFIX)) {
+            for (var file : files) {
+                var name = file.getFileName().toString();
+                try {
+                    var month = YearMonth.parse(name.substring(0, name.length() - PARTITION_SUFFIX.length()));
+                    partitions.put(month, new Partition(file, month));
+                } catch (DateTimeException e) {
+                    // Not a month file.
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Takes the contents of a snapshot of a file: its transactions which have not been removed.
+     * When the file holds every row and none has been removed, the store itself is used rather than a copy,
+     * so it must not grow until the snapshot is written.
+     * Must be called while holding this object's lock.
+     */
+    private SnapshotFile.Snapshot snapshotOf(Partition partition) {
+        var rows = ((partition.rows == null) && (removedRows == 0)) ? store
+                                                                     : store.copyOf(liveRows(partition).toArray());
+        return new SnapshotFile.Snapshot(rows, partition.fileRows, partition.fileTombstones);
+    }
+
+    /**
+     * Replaces the binary snapshot of a file, without holding this object's lock.
+     * Failing to write it is not an error, since the file can always be read instead.
+     *
+     * @param partition The file.
+     * @param contents  The contents to write, from {@link #snapshotOf}.
+     * @param stamp     The attributes of the file when it held exactly those contents.
+     */
+    private static void writeSnapshot(Partition partition, SnapshotFile.Snapshot contents,
+                                      BasicFileAttributes stamp) {
+        try {
+            SnapshotFile.write(partition.snapshotPath(), stamp, contents);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private static void assertGoodFile(Partition partition) {
+        assert Files.isRegularFile(partition.path) : partition.path.toAbsolutePath();
+    }
+
+    /**
+     * Represents one file of the database: either the whole database, or the transactions from a single month.
+     * Each file has its own journal, snapshot, and queue of records waiting to be appended to it.
+     * Guarded by the database's lock, apart from loading, which is guarded by the partition's own lock,
+     * and writing to the journal, which is guarded by its journal lock.
+     */
+    private static final class Partition {
+        private final Path path;
+        private final YearMonth month;
+        /**
+         * The rows read from or written to this file, in order, or {@code null} if it holds every row.
+         */
+        private final IntList rows;
+        private final ByteArrayOutputStream pending;
+        /**
+         * Held while writing to or replacing the journal.
+         */
+        private final Object journalLock;
+        private volatile boolean loaded;
+        /**
+         * How many transactions this file held according to its snapshot, while it has not been loaded,
+         * or {@code -1} if that is not known.
+         */
+        private volatile int unloadedRows;
+        private FileChannel journal;
+        /**
+         * Copies of the records queued since a rewrite of this file started, or {@code null} if none is running.
+         */
+        private ByteArrayOutputStream compacting;
+        private boolean needsSeparator, compactionPending, snapshotStale;
+        private int pendingRecords, fileRows, fileTombstones, generation;
+
+        /**
+         * @param path  The file.
+         * @param month The month the file holds, or {@code null} if it holds the whole database.
+         */
+        Partition(Path path, YearMonth month) {
+            this.path = path;
+            this.month = month;
+            rows = (month == null) ? null : new IntList();
+            pending = new ByteArrayOutputStream();
+            journalLock = new Object();
+            unloadedRows = -1;
+        }
+
+        private Path snapshotPath() {
+            return path.resolveSibling(path.getFileName() + ".snap");
+        }
+
+        /**
+         * Notes that a range of rows belongs to this file.
+         */
+        private void assign(int first, int end) {
+            if (rows != null)
+                for (int row = first; row < end; row++)
+                    rows.add(row);
+        }
+
+        private boolean contains(int row) {
+            if (rows == null)
+                return true;
+            int low = 0, high = rows.size() - 1;
+            while (low <= high) {
+                var middle = (low + high) >>> 1;
+                var value = rows.get(middle);
+                if (value < row)
+                    low = middle + 1;
+                else if (value > row)
+                    high = middle - 1;
+                else
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return Whether any day of this file's month is in a date range. Either bound can be {@code null}.
+         */
+        private boolean overlaps(LocalDate after, LocalDate before) {
+            return (month == null)
+                   || (((after == null) || after.isBefore(month.plusMonths(1).atDay(1)))
+                       && ((before == null) || before.isAfter(month.atDay(1))));
+        }
+    }
+}
@@ -10,30 +10,51 @@ import com.googlecode.lanterna.gui2.Interactable.*;
 import com.googlecode.lanterna.gui2.LinearLayout.*;
 import com.googlecode.lanterna.gui2.dialogs.*;
 import com.googlecode.lanterna.input.*;
-import com.pluralsight.ReportView.*;
 import com.pluralsight.components.*;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 
 /**
  * Represents a view of a list of transactions.
+ * Filtering runs on a background thread; each change to the filter supersedes any query still in progress.
+ * While the database is still loading, the list is filtered again as each chunk arrives.
  */
 final class TransactionListView extends BasicWindow {
+    private static final long DEBOUNCE_MILLIS = 50;
     private final TransactionDatabase database;
     private final LabeledButton[] buttons;
     private final TransactionList transactions;
     private final Label liveReports;
     private final SettingsPanel settings;
+    private final ScheduledExecutorService queryExecutor;
+    private final MutationRunner mutations;
+    private final Runnable onLoad;
+    private Future<?> pendingQuery;
     private FilterOptions filter;
+    private FilterOptions matchesFilter;
+    private int[] matches;
+    private int matchesLimit;
 
-    TransactionListView(TransactionDatabase database) {
+    TransactionListView(TransactionDatabase database, MutationRunner mutations) {
         super("Transactions");
 
         filter = new FilterOptions(null, null, null, null, null, null, null);
 
         this.database = database;
+        this.mutations = mutations;
+        onLoad = () -> {
+            var gui = getTextGUI();
+            if (gui != null)
+                gui.getGUIThread().invokeLater(this::generateList);
+        };
+        queryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "ledger-query");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         var layout = new Panel(new LinearLayout(Direction.HORIZONTAL));
         setComponent(layout);
@@ -45,7 +66,6 @@ final class TransactionListView extends BasicWindow {
         dataColumn.addComponent(liveReports);
         transactions = new TransactionList();
         dataColumn.addComponent(transactions);
-        generateList();
 
         var controls = new Panel(new LinearLayout(Direction.VERTICAL));
         layout.addComponent(controls);
@@ -86,6 +106,23 @@ final class TransactionListView extends BasicWindow {
         return super.handleInput(key);
     }
 
+    @Override
+    public void setTextGUI(WindowBasedTextGUI textGUI) {
+        super.setTextGUI(textGUI);
+        if (textGUI != null) {
+            if (database.isLoading())
+                database.addLoadListener(onLoad);
+            generateList();
+        }
+    }
+
+    @Override
+    public void close() {
+        database.removeLoadListener(onLoad);
+        queryExecutor.shutdownNow();
+        super.close();
+    }
+
     private void tryClose() {
         close();
     }
@@ -98,103 +135,103 @@ final class TransactionListView extends BasicWindow {
         }));
     }
 
-    @SuppressWarnings("ReassignedVariable")
+    /**
+     * Starts finding the transactions which pass the current filter, cancelling any earlier search.
+     * The search waits briefly first, so that a burst of changes only runs the last one.
+     * Their totals are worked out on the same thread, since they may need months which have not been loaded yet.
+     */
     private void generateList() {
-        transactions.clearItems();
-
-        int total = 0;
-        int visible = 0;
-        double totalAmount = 0;
-
-        for (var t : database) {
-            total++;
-            if (filter.test(t)) {
-                visible++;
-                totalAmount += t.amount();
-                transactions.addItem(t);
+        if (pendingQuery != null)
+            pendingQuery.cancel(true);
+
+        var query = filter;
+        var previous = matches;
+        var previousFilter = matchesFilter;
+        var previousLimit = matchesLimit;
+        pendingQuery = queryExecutor.schedule(() -> {
+            var gui = getTextGUI();
+            var dateTotals = query.onlyDates() ? database.dailyTotal(query.after(), query.before()) : null;
+            var size = database.totalSize();
+            if ((dateTotals != null) && (gui != null))
+                gui.getGUIThread().invokeLater(() -> {
+                    if (query == filter)
+                        showTotals(dateTotals, size);
+                });
+            var limit = database.rowLimit();
+            int[] result;
+            try {
+                result = ((previous != null) && query.refines(previousFilter))
+                         ? database.refine(query, previous, previousLimit).toArray()
+                         : database.rows(query).toArray();
+            } catch (CancellationException e) {
+                return;
             }
-        }
+            var totals = (dateTotals != null)
+                         ? dateTotals
+                         : new Totals(result.length, Arrays.stream(result).mapToLong(database::cents).sum());
 
-        //noinspection HardcodedFileSeparator
-        liveReports.setText("Showing $visible/$total transactions totalling $%.2f".formatted(totalAmount));
+            if (gui != null)
+                gui.getGUIThread().invokeLater(() -> showList(query, result, limit, totals, size));
+        }, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Represents filtering options for a list of transaction.
-     * Any filter can be {@code null} to not use it.
-     * Note that date filtering is half-open, while amount filtering is closed.
-     *
-     * @param after       The transaction must have occurred on or after this date.
-     * @param before      The transaction must have occurred strictly before this date.
-     * @param description The transaction's description must contain this text.
-     * @param vendor      The transaction's vendor must contain this text.
-     * @param minAmount   The transaction must be for at least this much money.
-     * @param maxAmount   The transaction must be for at most this much money.
-     * @param onlyCredits If {@code true}, only credits are shown. If {@code false}, only debits are shown.
+     * Replaces the contents of the list with the result of a search, unless the filter has changed since.
+     * Must be called on the GUI thread.
      */
-    @SuppressWarnings({"PackageVisibleInnerClass", "ParameterHidesMemberVariable"})
-    record FilterOptions(LocalDate after, LocalDate before, String description, String vendor, Double minAmount,
-                         Double maxAmount, Boolean onlyCredits) implements Predicate<Transaction> {
-        @SuppressWarnings({"OverlyComplexMethod", "FeatureEnvy"})
-        @Override
-        public boolean test(Transaction t) {
-            return
-                ((after == null) || t.date() >= after)
-                && ((before == null) || t.date() < before)
-                && ((description == null) || t.description().toLowerCase().contains(description.toLowerCase()))
-                && ((vendor == null) || t.vendor().toLowerCase().contains(vendor.toLowerCase()))
-                && ((minAmount == null) || (Math.abs(t.amount()) >= minAmount))
-                && ((maxAmount == null) || (Math.abs(t.amount()) <= maxAmount))
-                && ((onlyCredits == null) || (onlyCredits ? (t.amount() > 0) : (t.amount() < 1)));
-        }
-
-        FilterOptions withAfter(LocalDate after) {
-            return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
-        }
-
-        FilterOptions withBefore(LocalDate before) {
-            return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
-        }
+    private void showList(FilterOptions query, int[] result, int limit, Totals totals, int size) {
+        if (query != filter)
+            return;
 
-        FilterOptions withDescription(String description) {
-            return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
-        }
+        matches = result;
+        matchesFilter = query;
+        matchesLimit = limit;
 
-        FilterOptions withVendor(String vendor) {
-            return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
-        }
-
-        FilterOptions withMin(Double minAmount) {
-            return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
-        }
+        transactions.setRows(result);
+        showTotals(totals, size);
+    }
 
-        FilterOptions withMax(Double maxAmount) {
-            return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
-        }
+    /**
+     * Shows the count and total of the transactions which pass the current filter.
+     * Must be called on the GUI thread.
+     *
+     * @param size How many transactions there are in all.
+     */
+    private void showTotals(Totals totals, int size) {
+        var visible = totals.count();
+        var totalAmount = totals.cents() / 100.0;
+        var loading = database.isLoading() ? "Loading ${database.loadProgress()}%: " : "";
+        //noinspection HardcodedFileSeparator
+        liveReports.setText(loading + "Showing $visible/$size transactions totalling $%.2f".formatted(totalAmount));
+    }
 
-        FilterOptions withOnlyCredits(Boolean onlyCredits) {
-            return new FilterOptions(after, before, description, vendor, minAmount, maxAmount, onlyCredits);
+    private final class TransactionList extends VirtualListBox<Integer> {
+        TransactionList() {
+            super(new TransactionRenderer(database));
         }
-    }
 
-    private final class TransactionList extends AbstractListBox<Transaction, TransactionList> {
-        @Override
-        protected ListItemRenderer<Transaction, TransactionList> createDefaultListItemRenderer() {
-            return new TransactionRenderer();
+        /**
+         * Shows a set of rows from the database. Transactions are only looked up when they are drawn.
+         *
+         * @param rows The row numbers to show, in order.
+         */
+        void setRows(int[] rows) {
+            setItems(rows.length, index -> rows[index]);
         }
 
         @Override
         public synchronized Result handleKeyStroke(KeyStroke keyStroke) {
             if (isActivationStroke(keyStroke)) {
-                if (new MessageDialogBuilder()
+                if ((getSelectedIndex() >= 0) && (new MessageDialogBuilder()
                         .setTitle("Confirm Delete")
                         .setText("Are you sure you want to delete this transaction?")
                         .addButton(MessageDialogButton.Cancel)
                         .addButton(MessageDialogButton.Yes)
                         .build()
-                        .showDialog((WindowBasedTextGUI) getTextGUI()) == MessageDialogButton.Yes) {
-                    database.removeTransaction(getSelectedItem());
-                    generateList();
+                        .showDialog((WindowBasedTextGUI) getTextGUI()) == MessageDialogButton.Yes)) {
+                    int row = getSelectedItem();
+                    mutations.run((WindowBasedTextGUI) getTextGUI(), "Delete", () -> database.removeRow(row),
+                        removed -> generateList());
                 }
                 return Result.HANDLED;
             }
@@ -202,33 +239,49 @@ final class TransactionListView extends BasicWindow {
             return super.handleKeyStroke(keyStroke);
         }
 
+        /**
+         * Draws transactions by row number, caching their labels by row and width so that scrolling and
+         * moving the cursor do not look up or format every visible row again.
+         * Labels measured for the list's preferred size are kept apart, so they never push out the labels being drawn.
+         */
         @SuppressWarnings("InnerClassTooDeeplyNested")
-        private static final class TransactionRenderer extends ListItemRenderer<Transaction, TransactionList> {
+        private static final class TransactionRenderer implements ItemRenderer<Integer> {
+            private static final int CACHED_LABELS = 1 << 12;
+            private final TransactionDatabase database;
+            private final LabelCache labels = new LabelCache(CACHED_LABELS);
+            private final LabelCache measured = new LabelCache(CACHED_LABELS);
+
+            TransactionRenderer(TransactionDatabase database) {
+                this.database = database;
+            }
+
             @Override
-            public String getLabel(TransactionList listBox, int index, Transaction item) {
-                return super.getLabel(listBox, index, item);
+            public String getLabel(VirtualListBox<Integer> listBox, int index, Integer row) {
+                return measured.get(row, LabelCache.UNFITTED, () -> database.getRow(row).toString());
             }
 
-            @SuppressWarnings("ReassignedVariable")
             @Override
-            public void drawItem(TextGUIGraphics graphics, TransactionList listBox, int index, Transaction item, boolean selected, boolean focused) {
+            public void drawItem(TextGUIGraphics graphics, VirtualListBox<Integer> listBox, int index, Integer row, boolean selected, boolean focused) {
+                var debit = database.cents(row) < 0;
                 ThemeDefinition themeDefinition = listBox.getTheme().getDefinition(AbstractListBox.class);
                 if (selected && focused) {
                     graphics.applyThemeStyle(themeDefinition.getSelected());
-                    graphics.setForegroundColor((item.amount() < 0) ? ANSI.RED_BRIGHT : ANSI.WHITE);
+                    graphics.setForegroundColor(debit ? ANSI.RED_BRIGHT : ANSI.WHITE);
                 } else {
                     graphics.applyThemeStyle(themeDefinition.getNormal());
-                    graphics.setForegroundColor((item.amount() < 0) ? ANSI.RED : ANSI.BLACK);
+                    graphics.setForegroundColor(debit ? ANSI.RED : ANSI.BLACK);
                 }
 
-                //noinspection NonConstantStringShouldBeStringBuffer
-                String label = getLabel(listBox, index, item);
-
-                label = TerminalTextUtils.fitString(label, graphics.getSize().getColumns());
-                while (TerminalTextUtils.getColumnWidth(label) < graphics.getSize().getColumns())
-                    label += ' ';
+                var columns = graphics.getSize().getColumns();
+                graphics.putString(0, 0, labels.get(row, columns, () -> fit(database.getRow(row).toString(), columns)));
+            }
 
-                graphics.putString(0, 0, label);
+            /**
+             * @return The label, cut off or padded with spaces to fill exactly {@code columns} columns.
+             */
+            private static String fit(String label, int columns) {
+                var fitted = TerminalTextUtils.fitString(label, columns);
+                return fitted + " ".repeat(Math.max(columns - TerminalTextUtils.getColumnWidth(fitted), 0));
             }
         }
     }
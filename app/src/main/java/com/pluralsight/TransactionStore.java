@@ -0,0 +1,272 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Represents a growable table of transactions stored column by column in primitive arrays.
+ * Dates are stored as epoch seconds, amounts as cents, and text as ids into per-column dictionaries.
+ * {@link Transaction} objects are only created when a row is read back out.
+ * <p>
+ * Rows are never changed once added. Only one thread may add rows at a time, but any number of others can read
+ * the rows added so far without locking: the columns are copied whenever they grow, and each row is only
+ * published by the size once it is completely written, so a reader which has seen a row number sees the whole row.
+ */
+final class TransactionStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private final StringDictionary descriptions, vendors;
+    private volatile Columns columns;
+    private volatile int size;
+
+    TransactionStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity How many rows to make room for up front.
+     */
+    TransactionStore(int capacity) {
+        descriptions = new StringDictionary();
+        vendors = new StringDictionary();
+        var length = Math.max(capacity, 1);
+        columns = new Columns(new long[length], new long[length], new int[length], new int[length]);
+        size = 0;
+    }
+
+    /**
+     * Creates a store directly from its dictionaries and columns, without copying the columns.
+     *
+     * @param descriptions   The distinct descriptions, in id order.
+     * @param vendors        The distinct vendors, in id order.
+     * @param epochSeconds   The epoch column.
+     * @param cents          The cents column.
+     * @param descriptionIds The description id column.
+     * @param vendorIds      The vendor id column.
+     * @return A store holding one row for each entry of the columns, which must all be the same length.
+     */
+    static TransactionStore of(String[] descriptions, String[] vendors, long[] epochSeconds, long[] cents,
+                               int[] descriptionIds, int[] vendorIds) {
+        var store = new TransactionStore(0);
+        for (var description : descriptions)
+            store.descriptions.intern(description);
+        for (var vendor : vendors)
+            store.vendors.intern(vendor);
+        store.columns = new Columns(epochSeconds, cents, descriptionIds, vendorIds);
+        store.size = epochSeconds.length;
+        return store;
+    }
+
+    /**
+     * Converts a date-time to the representation used by this store.
+     * Fractions of a second are dropped.
+     *
+     * @param dateTime The date-time to convert.
+     * @return The number of seconds since the epoch, treating {@code dateTime} as UTC.
+     */
+    static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Converts an amount of money to the representation used by this store.
+     *
+     * @param amount The amount of money to convert.
+     * @return The amount in cents, rounded to the nearest cent.
+     */
+    static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Adds a row to the end of this store.
+     *
+     * @param transaction The transaction to add.
+     * @return The row number of the new row.
+     */
+    int add(Transaction transaction) {
+        return add(toEpochSecond(transaction.dateTime()), toCents(transaction.amount()), transaction.description(),
+            transaction.vendor());
+    }
+
+    /**
+     * Adds a row to the end of this store from values already in the representation used by this store.
+     *
+     * @param epochSecond When the transaction occurred, as from {@link #toEpochSecond(LocalDateTime)}.
+     * @param amount      The amount of the transaction in cents.
+     * @param description What the transaction was for.
+     * @param vendor      Who the transaction was with.
+     * @return The row number of the new row.
+     */
+    int add(long epochSecond, long amount, String description, String vendor) {
+        var row = size;
+        ensureCapacity(row + 1);
+        var columns = this.columns;
+        columns.epochSeconds[row] = epochSecond;
+        columns.cents[row] = amount;
+        columns.descriptionIds[row] = descriptions.intern(description);
+        columns.vendorIds[row] = vendors.intern(vendor);
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Adds every row of another store to the end of this store, in order.
+     *
+     * @param other The store to copy rows from.
+     */
+    void addAll(TransactionStore other) {
+        var first = size;
+        var count = other.size;
+        ensureCapacity(first + count);
+        var descriptionMap = remap(other.descriptions, descriptions);
+        var vendorMap = remap(other.vendors, vendors);
+        var from = other.columns;
+        var to = columns;
+        System.arraycopy(from.epochSeconds, 0, to.epochSeconds, first, count);
+        System.arraycopy(from.cents, 0, to.cents, first, count);
+        for (int row = 0; row < count; row++) {
+            to.descriptionIds[first + row] = descriptionMap[from.descriptionIds[row]];
+            to.vendorIds[first + row] = vendorMap[from.vendorIds[row]];
+        }
+        size = first + count;
+    }
+
+    /**
+     * Creates a copy of this store without some of its rows. The remaining rows are renumbered.
+     *
+     * @param removed The rows to leave out.
+     * @return A new store with the remaining rows, in order.
+     */
+    TransactionStore without(BitSet removed) {
+        var end = size;
+        var copy = new TransactionStore(end - removed.cardinality());
+        for (int row = removed.nextClearBit(0); row < end; row = removed.nextClearBit(row + 1))
+            copy.add(get(row));
+        return copy;
+    }
+
+    /**
+     * Creates a copy of some of the rows of this store. The copied rows are renumbered.
+     *
+     * @param rows The rows to copy, in the order to copy them.
+     * @return A new store with just those rows.
+     */
+    TransactionStore copyOf(int[] rows) {
+        var copy = new TransactionStore(rows.length);
+        for (var row : rows)
+            copy.add(get(row));
+        return copy;
+    }
+
+    /**
+     * @param row A row number.
+     * @return A transaction with the contents of that row.
+     */
+    Transaction get(int row) {
+        Objects.checkIndex(row, size);
+        var columns = this.columns;
+        return new Transaction(
+            LocalDateTime.ofEpochSecond(columns.epochSeconds[row], 0, ZoneOffset.UTC),
+            descriptions.get(columns.descriptionIds[row]),
+            vendors.get(columns.vendorIds[row]),
+            columns.cents[row] / 100.0);
+    }
+
+    /**
+     * @return How many rows are in this store.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param row A row number.
+     * @return When the transaction in that row occurred, as seconds since the epoch in UTC.
+     */
+    long epochSecond(int row) {
+        return columns.epochSeconds[row];
+    }
+
+    /**
+     * @param row A row number.
+     * @return How much money the transaction in that row exchanged, in cents.
+     */
+    long cents(int row) {
+        return columns.cents[row];
+    }
+
+    /**
+     * Finds the rows in a range which pass some numeric bounds, scanning the columns directly.
+     *
+     * @param bounds The bounds to check.
+     * @param start  The first row to scan.
+     * @param end    The row just after the last row to scan.
+     * @return The set of rows, relative to {@code start}, which pass {@code bounds}.
+     */
+    BitSet select(NumericBounds bounds, int start, int end) {
+        var columns = this.columns;
+        return NumericScan.select(columns.epochSeconds, columns.cents, start, end, bounds);
+    }
+
+    /**
+     * @param row A row number.
+     * @return The id of the description of the transaction in that row.
+     */
+    int descriptionId(int row) {
+        return columns.descriptionIds[row];
+    }
+
+    /**
+     * @param row A row number.
+     * @return The id of the vendor of the transaction in that row.
+     */
+    int vendorId(int row) {
+        return columns.vendorIds[row];
+    }
+
+    /**
+     * @return The dictionary of descriptions.
+     */
+    StringDictionary descriptions() {
+        return descriptions;
+    }
+
+    /**
+     * @return The dictionary of vendors.
+     */
+    StringDictionary vendors() {
+        return vendors;
+    }
+
+    private static int[] remap(StringDictionary from, StringDictionary to) {
+        var map = new int[from.size()];
+        for (int id = 0; id < map.length; id++)
+            map[id] = to.intern(from.get(id));
+        return map;
+    }
+
+    /**
+     * Makes room for more rows by publishing copies of the columns, leaving readers of the old ones undisturbed.
+     */
+    private void ensureCapacity(int capacity) {
+        var old = columns;
+        var length = old.epochSeconds.length;
+        if (capacity <= length)
+            return;
+        var newCapacity = Math.max(capacity, length + (length >> 1));
+        columns = new Columns(
+            Arrays.copyOf(old.epochSeconds, newCapacity),
+            Arrays.copyOf(old.cents, newCapacity),
+            Arrays.copyOf(old.descriptionIds, newCapacity),
+            Arrays.copyOf(old.vendorIds, newCapacity));
+    }
+
+    /**
+     * The column arrays, which are replaced together whenever they grow.
+     * Only the entries below the store's size are meaningful.
+     */
+    private record Columns(long[] epochSeconds, long[] cents, int[] descriptionIds, int[] vendorIds) {
+    }
+}
@@ -0,0 +1,137 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Represents a case-insensitive substring index over the strings in a {@link StringDictionary}.
+ * Every three-character window of every string is mapped to the ids of the strings containing it,
+ * so a substring search only has to check the strings which contain all of the needle's windows.
+ * <p>
+ * Matching is equivalent to {@code value.toLowerCase().contains(needle.toLowerCase())}.
+ * Only one thread may update the index at a time, but any number of others can match against it without locking.
+ * A match only covers the strings which were indexed when it started.
+ */
+final class TrigramIndex {
+    private static final int GRAM = 3;
+    private final StringDictionary dictionary;
+    private final Map<Long, IntList> postings;
+    private volatile String[] folded;
+    private volatile int indexed;
+
+    /**
+     * @param dictionary The dictionary to index. Call {@link #update()} whenever strings are added to it.
+     */
+    TrigramIndex(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        postings = new ConcurrentHashMap<>();
+        folded = new String[Math.max(dictionary.size(), 1)];
+        update();
+    }
+
+    private static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+        var result = new int[Math.min(left.length, right.length)];
+        int size = 0, i = 0, j = 0;
+        while ((i < left.length) && (j < right.length))
+            if (left[i] < right[j])
+                i++;
+            else if (left[i] > right[j])
+                j++;
+            else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Indexes any strings which have been added to the dictionary since the last update.
+     */
+    void update() {
+        var end = dictionary.size();
+        if (end > folded.length)
+            folded = Arrays.copyOf(folded, Math.max(end, folded.length + (folded.length >> 1)));
+        for (int id = indexed; id < end; id++) {
+            var value = dictionary.get(id).toLowerCase();
+            folded[id] = value;
+            var seen = new HashSet<Long>();
+            for (int start = 0; (start + GRAM) <= value.length(); start++) {
+                var gram = gram(value, start);
+                if (seen.add(gram))
+                    postings.computeIfAbsent(gram, g -> new IntList()).add(id);
+            }
+        }
+        indexed = end;
+    }
+
+    /**
+     * Finds every string in the dictionary which contains some text, ignoring case.
+     *
+     * @param needle The text to search for.
+     * @return The set of ids of matching strings.
+     */
+    BitSet matching(String needle) {
+        return matching(needle.toLowerCase(), indexed);
+    }
+
+    /**
+     * Compiles a search for some text into a test on ids, ignoring case.
+     * Strings indexed by then are looked up once, up front; any added to the dictionary later are checked
+     * against the text when they are tested, so the test stays correct as the dictionary grows.
+     *
+     * @param needle The text to search for.
+     * @return A predicate which accepts the id of any string in the dictionary which contains {@code needle}.
+     */
+    IntPredicate matcher(String needle) {
+        var foldedNeedle = needle.toLowerCase();
+        var count = indexed;
+        var matches = matching(foldedNeedle, count);
+        return id -> (id < count) ? matches.get(id) : fold(id).contains(foldedNeedle);
+    }
+
+    private String fold(int id) {
+        return (id < indexed) ? folded[id] : dictionary.get(id).toLowerCase();
+    }
+
+    /**
+     * @param foldedNeedle The text to search for, in lower case.
+     * @param count        How many strings to search, which must all have been indexed.
+     */
+    private BitSet matching(String foldedNeedle, int count) {
+        var folded = this.folded;
+        var matches = new BitSet(count);
+
+        if (foldedNeedle.length() < GRAM) {
+            for (int id = 0; id < count; id++)
+                if (folded[id].contains(foldedNeedle))
+                    matches.set(id);
+            return matches;
+        }
+
+        var lists = new ArrayList<IntList>();
+        for (int start = 0; (start + GRAM) <= foldedNeedle.length(); start++) {
+            var list = postings.get(gram(foldedNeedle, start));
+            if (list == null)
+                return matches;
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(IntList::size));
+
+        var candidates = lists.get(0).stream().toArray();
+        for (int i = 1; (i < lists.size()) && (candidates.length > 0); i++)
+            candidates = intersect(candidates, lists.get(i).stream().toArray());
+
+        for (var id : candidates)
+            if ((id < count) && folded[id].contains(foldedNeedle))
+                matches.set(id);
+        return matches;
+    }
+}
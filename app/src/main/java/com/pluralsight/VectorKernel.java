@@ -0,0 +1,41 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import jdk.incubator.vector.*;
+
+/**
+ * Checks {@link NumericBounds} against whole vectors of rows at a time.
+ * Only {@link NumericScan} may use this class, and only once it has found the {@code jdk.incubator.vector} module.
+ * It is only compiled by the {@code vector} build profile, which adds the module, so other builds stay free of
+ * incubator warnings.
+ */
+final class VectorKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private VectorKernel() {
+    }
+
+    /**
+     * Sets the bit in {@code words} for each row from {@code start} to {@code end} which passes {@code bounds}.
+     * Bits are numbered relative to {@code start}.
+     */
+    static void select(long[] epochSeconds, long[] cents, int start, int end, NumericBounds bounds, long[] words) {
+        var lanes = SPECIES.length();
+        var vectorEnd = start + (((end - start) / lanes) * lanes);
+        for (int row = start; row < vectorEnd; row += lanes) {
+            var epoch = LongVector.fromArray(SPECIES, epochSeconds, row);
+            var amount = LongVector.fromArray(SPECIES, cents, row);
+            var abs = amount.abs();
+            var mask = epoch.compare(VectorOperators.GE, bounds.fromSecond())
+                .and(epoch.compare(VectorOperators.LE, bounds.untilSecond()))
+                .and(amount.compare(VectorOperators.GE, bounds.minCents()))
+                .and(amount.compare(VectorOperators.LE, bounds.maxCents()))
+                .and(abs.compare(VectorOperators.GE, bounds.minAbsCents()))
+                .and(abs.compare(VectorOperators.LE, bounds.maxAbsCents()));
+            // The lane count divides 64, so a vector's bits never straddle two words.
+            words[(row - start) >>> 6] |= mask.toLong() << (row - start);
+        }
+        NumericScan.selectScalar(epochSeconds, cents, start, vectorEnd, end, bounds, words);
+    }
+}
@@ -0,0 +1,205 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight.components;
+
+import com.googlecode.lanterna.*;
+import com.googlecode.lanterna.graphics.*;
+import com.googlecode.lanterna.gui2.*;
+import com.googlecode.lanterna.input.*;
+
+import java.util.function.*;
+
+/**
+ * Represents a list box whose items are looked up by index only when they are drawn.
+ * Unlike {@link AbstractListBox}, it never holds every item, so scrolling and drawing
+ * cost the same no matter how many items there are.
+ *
+ * @param <V> The type of item in this list.
+ */
+public class VirtualListBox<V> extends AbstractInteractableComponent<VirtualListBox<V>> {
+    private static final int MEASURED_ITEMS = 100;
+    private final ItemRenderer<V> itemRenderer;
+    private IntFunction<? extends V> items;
+    private int itemCount, selectedIndex, scrollOffset;
+
+    /**
+     * Creates a new, empty list box.
+     *
+     * @param itemRenderer How to draw each item.
+     */
+    public VirtualListBox(ItemRenderer<V> itemRenderer) {
+        this.itemRenderer = itemRenderer;
+        items = index -> null;
+        itemCount = 0;
+        selectedIndex = -1;
+        scrollOffset = 0;
+    }
+
+    /**
+     * Replaces the items in this list. The selection keeps its index where possible.
+     *
+     * @param itemCount How many items there are.
+     * @param items     Looks up the item at an index from {@code 0} to {@code itemCount - 1}.
+     */
+    public synchronized void setItems(int itemCount, IntFunction<? extends V> items) {
+        this.itemCount = itemCount;
+        this.items = items;
+        selectedIndex = (itemCount == 0) ? -1 : Math.min(Math.max(selectedIndex, 0), itemCount - 1);
+        scrollOffset = Math.min(scrollOffset, Math.max(itemCount - 1, 0));
+        invalidate();
+    }
+
+    /**
+     * @return How many items are in this list.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return The index of the selected item, or {@code -1} if this list is empty.
+     */
+    public int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    /**
+     * @return The selected item, or {@code null} if this list is empty.
+     */
+    public V getSelectedItem() {
+        return (selectedIndex < 0) ? null : items.apply(selectedIndex);
+    }
+
+    /**
+     * Selects an item, scrolling it into view.
+     *
+     * @param index The index of the item to select. It is clamped to the items in this list.
+     */
+    public synchronized void setSelectedIndex(int index) {
+        selectedIndex = (itemCount == 0) ? -1 : Math.min(Math.max(index, 0), itemCount - 1);
+        invalidate();
+    }
+
+    @SuppressWarnings("OverlyComplexMethod")
+    @Override
+    protected Result handleKeyStroke(KeyStroke keyStroke) {
+        var page = Math.max(getSize().getRows() - 1, 1);
+        //noinspection SwitchStatementWithoutDefaultBranch,EnumSwitchStatementWhichMissesCases
+        switch (keyStroke.getKeyType()) {
+            case ArrowUp -> {
+                if (selectedIndex <= 0)
+                    return Result.MOVE_FOCUS_UP;
+                setSelectedIndex(selectedIndex - 1);
+                return Result.HANDLED;
+            }
+            case ArrowDown -> {
+                if (selectedIndex >= (itemCount - 1))
+                    return Result.MOVE_FOCUS_DOWN;
+                setSelectedIndex(selectedIndex + 1);
+                return Result.HANDLED;
+            }
+            case PageUp -> {
+                setSelectedIndex(selectedIndex - page);
+                return Result.HANDLED;
+            }
+            case PageDown -> {
+                setSelectedIndex(selectedIndex + page);
+                return Result.HANDLED;
+            }
+            case Home -> {
+                setSelectedIndex(0);
+                return Result.HANDLED;
+            }
+            case End -> {
+                setSelectedIndex(itemCount - 1);
+                return Result.HANDLED;
+            }
+        }
+
+        return super.handleKeyStroke(keyStroke);
+    }
+
+    @Override
+    protected InteractableRenderer<VirtualListBox<V>> createDefaultRenderer() {
+        return new VirtualListBoxRenderer();
+    }
+
+    /**
+     * Draws the items in a {@link VirtualListBox}.
+     *
+     * @param <V> The type of item to draw.
+     */
+    public interface ItemRenderer<V> {
+        /**
+         * @param listBox The list containing the item.
+         * @param index   The index of the item.
+         * @param item    The item.
+         * @return The text to show for the item.
+         */
+        default String getLabel(VirtualListBox<V> listBox, int index, V item) {
+            return String.valueOf(item);
+        }
+
+        /**
+         * Draws a single item onto a graphics object one row high.
+         *
+         * @param graphics The graphics to draw onto.
+         * @param listBox  The list containing the item.
+         * @param index    The index of the item.
+         * @param item     The item.
+         * @param selected Whether the item is selected.
+         * @param focused  Whether the list is focused.
+         */
+        void drawItem(TextGUIGraphics graphics, VirtualListBox<V> listBox, int index, V item, boolean selected, boolean focused);
+    }
+
+    private class VirtualListBoxRenderer implements InteractableRenderer<VirtualListBox<V>> {
+        @Override
+        public TerminalPosition getCursorLocation(VirtualListBox<V> listBox) {
+            return null;
+        }
+
+        @Override
+        public TerminalSize getPreferredSize(VirtualListBox<V> listBox) {
+            var columns = 1;
+            var measured = Math.min(itemCount, scrollOffset + MEASURED_ITEMS);
+            for (int index = scrollOffset; index < measured; index++)
+                columns = Math.max(columns,
+                    TerminalTextUtils.getColumnWidth(itemRenderer.getLabel(listBox, index, items.apply(index))));
+            return new TerminalSize(columns + 1, Math.max(Math.min(itemCount, MEASURED_ITEMS), 1));
+        }
+
+        @Override
+        public void drawComponent(TextGUIGraphics graphics, VirtualListBox<V> listBox) {
+            var rows = graphics.getSize().getRows();
+            var columns = graphics.getSize().getColumns();
+            var scrollable = itemCount > rows;
+            var itemColumns = scrollable ? (columns - 1) : columns;
+
+            if (selectedIndex >= 0) {
+                if (selectedIndex < scrollOffset)
+                    scrollOffset = selectedIndex;
+                else if (selectedIndex >= (scrollOffset + rows))
+                    scrollOffset = (selectedIndex - rows) + 1;
+            }
+            scrollOffset = Math.max(Math.min(scrollOffset, itemCount - rows), 0);
+
+            var definition = getTheme().getDefinition(AbstractListBox.class);
+            graphics.applyThemeStyle(definition.getNormal());
+            graphics.fill(' ');
+
+            for (int row = 0; (row < rows) && ((scrollOffset + row) < itemCount); row++) {
+                var index = scrollOffset + row;
+                var itemGraphics = graphics.newTextGraphics(new TerminalPosition(0, row), new TerminalSize(itemColumns, 1));
+                itemRenderer.drawItem(itemGraphics, listBox, index, items.apply(index), index == selectedIndex, isFocused());
+            }
+
+            if (scrollable) {
+                graphics.applyThemeStyle(definition.getNormal());
+                var thumb = (int) (((long) scrollOffset * (rows - 1)) / Math.max(itemCount - rows, 1));
+                for (int row = 0; row < rows; row++)
+                    graphics.setCharacter(columns - 1, row, (row == thumb) ? Symbols.BLOCK_SOLID : Symbols.BLOCK_MIDDLE);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import com.pluralsight.Aggregator.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregatorTest {
+    @Test
+    void matchesSequentialSums() {
+        var random = new Random(42);
+        var amounts = random.longs(100_000, -50_000, 50_000).toArray();
+        var rows = IntStream.range(0, amounts.length).filter(row -> (row % 3) != 0).toArray();
+
+        var aggregate = Aggregator.aggregate(rows, row -> amounts[row]);
+
+        var selected = Arrays.stream(rows).mapToLong(row -> amounts[row]).toArray();
+        var credits = Arrays.stream(selected).filter(amount -> amount > 0).toArray();
+        var debits = Arrays.stream(selected).filter(amount -> amount < 0).toArray();
+        assertEquals(new Totals(selected.length, LongStream.of(selected).sum()), aggregate.all(), "Totals are wrong");
+        assertEquals(new Totals(credits.length, LongStream.of(credits).sum()), aggregate.credits(), "Credits are wrong");
+        assertEquals(new Totals(debits.length, LongStream.of(debits).sum()), aggregate.debits(), "Debits are wrong");
+        assertEquals(LongStream.of(selected).min().orElseThrow(), aggregate.minCents(), "Minimum is wrong");
+        assertEquals(LongStream.of(selected).max().orElseThrow(), aggregate.maxCents(), "Maximum is wrong");
+    }
+
+    @Test
+    void emptyRows() {
+        assertEquals(new Aggregate(new Totals(0, 0), new Totals(0, 0), new Totals(0, 0), 0, 0),
+            Aggregator.aggregate(new int[0], row -> 1), "Empty aggregate is wrong");
+    }
+}
@@ -0,0 +1,35 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DailyTotalsTest {
+    private static long epochSecond(LocalDate date) {
+        return TransactionStore.toEpochSecond(date.atTime(12, 0));
+    }
+
+    @Test
+    void countsDaysFarOutsideTheRange() {
+        var totals = new DailyTotals();
+        var days = new LocalDate[]{
+            LocalDate.of(2_024, 3, 1), LocalDate.of(0, 1, 1), LocalDate.of(9_999, 12, 31),
+            LocalDate.MIN, LocalDate.MAX, LocalDate.of(2_024, 3, 2)
+        };
+        for (int i = 0; i < days.length; i++)
+            totals.add(epochSecond(days[i]), i + 1);
+
+        assertEquals(new Totals(6, 21), totals.total(null, null), "Outlying days are not counted");
+        assertEquals(new Totals(2, 7), totals.total(LocalDate.of(2_024, 3, 1), LocalDate.of(2_024, 3, 3)),
+            "Days in the dense range are wrong");
+        assertEquals(new Totals(2, 8), totals.total(LocalDate.of(9_000, 1, 1), null), "Late outliers are wrong");
+        assertEquals(new Totals(2, 6), totals.total(null, LocalDate.of(1, 1, 1)), "Early outliers are wrong");
+
+        totals.remove(epochSecond(LocalDate.MAX), 5);
+        assertEquals(new Totals(1, 3), totals.total(LocalDate.of(9_000, 1, 1), null), "Outliers are not removed");
+    }
+}
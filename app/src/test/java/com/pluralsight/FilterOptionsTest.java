@@ -0,0 +1,95 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterOptionsTest {
+    private static final List<Transaction> TRANSACTIONS = List.of(
+        new Transaction(LocalDateTime.of(2_024, 3, 1, 0, 0), "Ergonomic keyboard", "Amazon", -89.50),
+        new Transaction(LocalDateTime.of(2_024, 3, 1, 23, 59, 59), "Invoice 1001 paid", "Joe", 1_500.00),
+        new Transaction(LocalDateTime.of(2_024, 3, 2, 0, 0), "Grocery shopping", "Walmart", -120.35),
+        new Transaction(LocalDateTime.of(2_024, 4, 17, 9, 5, 10), "Gasoline", "Shell", -45.00),
+        new Transaction(LocalDateTime.of(2_024, 4, 18, 12, 30), "Refund", "AMAZON", 0.50));
+    private static final List<FilterOptions> FILTERS = List.of(
+        new FilterOptions(null, null, null, null, null, null, null),
+        new FilterOptions(LocalDate.of(2_024, 3, 2), null, null, null, null, null, null),
+        new FilterOptions(null, LocalDate.of(2_024, 3, 2), null, null, null, null, null),
+        new FilterOptions(LocalDate.of(2_024, 3, 1), LocalDate.of(2_024, 4, 18), null, null, null, null, null),
+        new FilterOptions(null, null, "", "amaz", null, null, null),
+        new FilterOptions(null, null, "in", null, null, null, null),
+        new FilterOptions(null, null, "INVOICE", "jo", null, null, null),
+        new FilterOptions(null, null, null, null, 45.0, 120.35, null),
+        new FilterOptions(null, null, null, null, 0.5, null, true),
+        new FilterOptions(null, null, null, null, null, null, false));
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Opens an empty ledger in the temporary directory and adds {@link #TRANSACTIONS} to it.
+     */
+    private TransactionDatabase ledger() throws IOException {
+        var file = directory.resolve("ledger.csv");
+        Files.writeString(file, "");
+        var db = new TransactionDatabase(file.toFile());
+        TRANSACTIONS.forEach(db::addTransaction);
+        return db;
+    }
+
+    @Test
+    void compiledMatchesTest() throws IOException {
+        try (var db = ledger()) {
+            for (var filter : FILTERS) {
+                var predicate = filter.compile(db);
+                for (int row = 0; row < TRANSACTIONS.size(); row++)
+                    assertEquals(filter.test(TRANSACTIONS.get(row)), predicate.test(row), "$filter disagrees on row $row");
+            }
+        }
+    }
+
+    @Test
+    void refines() {
+        var none = new FilterOptions(null, null, null, null, null, null, null);
+        var vendor = none.withVendor("ama");
+        assertTrue(vendor.withVendor("AMAZ").refines(vendor), "Longer substring does not refine");
+        assertFalse(vendor.withVendor("am").refines(vendor), "Shorter substring refines");
+        assertTrue(vendor.refines(none.withVendor("")), "Substring does not refine empty text");
+        assertTrue(none.withMin(10.0).withMax(20.0).refines(none.withMin(5.0)), "Tighter amounts do not refine");
+        assertFalse(none.withMin(5.0).refines(none.withMin(10.0)), "Looser minimum refines");
+        var march = none.withAfter(LocalDate.of(2_024, 3, 1)).withBefore(LocalDate.of(2_024, 4, 1));
+        assertTrue(march.withAfter(LocalDate.of(2_024, 3, 15)).refines(march), "Smaller window does not refine");
+        assertFalse(march.withBefore(null).refines(march), "Open window refines");
+        assertTrue(none.withOnlyCredits(true).refines(none), "Credits do not refine everything");
+        assertFalse(none.withOnlyCredits(true).refines(none.withOnlyCredits(false)), "Credits refine debits");
+
+        for (var filter : FILTERS)
+            for (var other : FILTERS)
+                if (filter.refines(other))
+                    for (var transaction : TRANSACTIONS)
+                        assertTrue(!filter.test(transaction) || other.test(transaction), "$filter does not refine $other");
+    }
+
+    @Test
+    void refinedRowsMatchFullScan() throws IOException {
+        try (var db = ledger()) {
+            var broad = new FilterOptions(null, null, null, "a", null, null, null);
+            var previous = db.rows(broad).toArray();
+            var limit = db.rowLimit();
+
+            db.removeRow(0);
+            db.addTransaction(new Transaction(LocalDateTime.of(2_024, 5, 1, 0, 0), "Books", "Amazon", -12.00));
+
+            var narrow = broad.withVendor("amaz");
+            assertArrayEquals(db.rows(narrow).toArray(), db.refine(narrow, previous, limit).toArray(), "Refined rows differ");
+        }
+    }
+}
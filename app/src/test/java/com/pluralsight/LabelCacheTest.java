@@ -0,0 +1,40 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelCacheTest {
+    @Test
+    void keysByRowAndWidth() {
+        var cache = new LabelCache(8);
+        var created = new AtomicInteger();
+        Supplier<String> create = () -> {
+            created.incrementAndGet();
+            return "a";
+        };
+        assertEquals("a", cache.get(1, 10, create), "Label is not created");
+        assertEquals("a", cache.get(1, 10, create), "Label is not reused");
+        assertEquals("c", cache.get(1, 20, () -> "c"), "Label is shared between widths");
+        assertEquals("d", cache.get(2, 10, () -> "d"), "Label is shared between rows");
+        assertEquals("e", cache.get(1, LabelCache.UNFITTED, () -> "e"), "Unfitted label is shared with a width");
+        assertEquals(1, created.get(), "Label is created more than once");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        var cache = new LabelCache(2);
+        cache.get(1, 10, () -> "one");
+        cache.get(2, 10, () -> "two");
+        cache.get(1, 10, () -> "unused");
+        cache.get(3, 10, () -> "three");
+        assertEquals(2, cache.size(), "Cache is not bounded");
+        assertEquals("one", cache.get(1, 10, () -> "evicted"), "Recently used label is evicted");
+        assertEquals("again", cache.get(2, 10, () -> "again"), "Least recently used label is kept");
+    }
+}
@@ -0,0 +1,33 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthlyRollupTest {
+    private static long epochSecond(LocalDate date) {
+        return TransactionStore.toEpochSecond(date.atTime(12, 0));
+    }
+
+    @Test
+    void countsExtremeYears() {
+        var rollup = new MonthlyRollup();
+        rollup.add(epochSecond(LocalDate.of(2_024, 3, 1)), 1);
+        rollup.add(epochSecond(LocalDate.MIN), 2);
+        rollup.add(epochSecond(LocalDate.MAX), 4);
+        rollup.add(epochSecond(LocalDate.of(2_024, 4, 1)), 8);
+
+        assertEquals(new Totals(4, 15), rollup.total(null, null), "Extreme years are not counted");
+        assertEquals(new Totals(1, 1), rollup.total(YearMonth.of(2_024, 3), YearMonth.of(2_024, 4)),
+            "Ordinary month is wrong");
+        assertEquals(new Totals(1, 4), rollup.total(YearMonth.of(3_000, 1), null), "Latest month is wrong");
+        assertEquals(new Totals(1, 2), rollup.total(null, YearMonth.of(1, 1)), "Earliest month is wrong");
+
+        rollup.remove(epochSecond(LocalDate.MIN), 2);
+        assertEquals(new Totals(3, 13), rollup.total(null, null), "Extreme year is not removed");
+    }
+}
@@ -0,0 +1,62 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericScanTest {
+    private static final List<FilterOptions> FILTERS = List.of(
+        new FilterOptions(null, null, null, null, null, null, null),
+        new FilterOptions(LocalDate.of(2_024, 3, 2), LocalDate.of(2_024, 5, 1), null, null, null, null, null),
+        new FilterOptions(null, null, null, null, 45.0, 120.35, null),
+        new FilterOptions(null, null, null, null, 0.1, 0.29, null),
+        new FilterOptions(null, LocalDate.of(2_024, 4, 1), null, null, 0.5, null, true),
+        new FilterOptions(null, null, null, null, null, 1.0, false),
+        new FilterOptions(null, null, null, null, -1.0, -0.5, null));
+
+    /**
+     * Checks {@link NumericScan#select} against filters. It uses the vector kernel when the tests run with the
+     * {@code vector} build profile, and scans row by row otherwise.
+     */
+    @Test
+    void boundsMatchFilters() {
+        var random = new Random(7);
+        var start = TransactionStore.toEpochSecond(LocalDateTime.of(2_024, 1, 1, 0, 0));
+        var epochSeconds = random.longs(1_003, start, start + (200L * 86_400)).toArray();
+        var cents = random.longs(epochSeconds.length, -20_000, 20_000).toArray();
+        cents[0] = 99;
+        cents[1] = 100;
+        cents[2] = 29;
+        cents[3] = -4_500;
+
+        for (var filter : FILTERS) {
+            var bounds = filter.numericBounds();
+            var selected = NumericScan.select(epochSeconds, cents, 0, cents.length, bounds);
+            var words = new long[(cents.length + 63) >>> 6];
+            NumericScan.selectScalar(epochSeconds, cents, 0, 0, cents.length, bounds, words);
+            var scalar = BitSet.valueOf(words);
+
+            for (int row = 0; row < cents.length; row++) {
+                var transaction = new Transaction(LocalDateTime.ofEpochSecond(epochSeconds[row], 0, ZoneOffset.UTC),
+                    "", "", cents[row] / 100.0);
+                assertEquals(filter.test(transaction), scalar.get(row), "Scalar $filter disagrees on row $row");
+                assertEquals(filter.test(transaction), selected.get(row), "Selected $filter disagrees on row $row");
+            }
+        }
+    }
+
+    @Test
+    void centsBounds() {
+        assertEquals(29, NumericBounds.centsAtLeast(0.29), "Minimum of 0.29 is wrong");
+        assertEquals(29, NumericBounds.centsAtMost(0.29), "Maximum of 0.29 is wrong");
+        assertEquals(12_036, NumericBounds.centsAtLeast(120.355), "Minimum of 120.355 is wrong");
+        assertEquals(12_035, NumericBounds.centsAtMost(120.355), "Maximum of 120.355 is wrong");
+        assertEquals(0, NumericBounds.centsAtLeast(-3), "Negative minimum is wrong");
+        assertEquals(-1, NumericBounds.centsAtMost(-3), "Negative maximum is wrong");
+    }
+}
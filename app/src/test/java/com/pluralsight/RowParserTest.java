@@ -0,0 +1,76 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowParserTest {
+    private static final String[] ROWS = {
+        "2024-04-26T12:30,Desc,Vend,100.00",
+        "2024-04-26T12:30:45,Desc,Vend,-89.5",
+        "2024-02-29T23:59:59,Leap,Vend,0.01",
+        "2023-02-29T00:00,Not leap,Vend,1.00",
+        "2024-13-01T00:00,Bad month,Vend,1.00",
+        "2024-04-26T24:00,Bad hour,Vend,1.00",
+        "0001-01-01T00:00,Early,Vend,7",
+        "2024-04-26T12:30:15.5,Fraction,Vend,1.00",
+        "2024-04-26T12:30,Zero,Vend,-0.00",
+        "2024-04-26T12:30,Exponent,Vend,1e3",
+        "2024-04-26T12:30,Three places,Vend,1.005",
+        "2024-04-26T12:30,Bare point,Vend,5.",
+        "2024-04-26T12:30,Leading point,Vend,.5",
+        "2024-04-26T12:30,Padded,Vend, 5.00",
+        "2024-04-26T12:30,Not a number,Vend,NaN",
+        "2024-04-26T12:30,,,3.50",
+        "2024-04-26T12:30,Trailing,Vend,3.50,",
+        "2024-04-26T12:30,Five,Vend,3.50,Extra",
+        "2024-04-26T12:30,Ünïcödé,Café,12.34",
+        "2024-04-26T12:30,Huge,Vend,999999999999999",
+    };
+
+    /**
+     * Deserializes the way {@link Transaction#deserialize(String)} always has.
+     */
+    private static Optional<Transaction> reference(String csv) {
+        var tokens = csv.split(",");
+        if (tokens.length != 4)
+            return Optional.empty();
+        try {
+            return Optional.of(new Transaction(LocalDateTime.parse(tokens[0]), tokens[1], tokens[2],
+                Double.parseDouble(tokens[3])));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Test
+    void matchesSplitAndParse() {
+        for (var row : ROWS)
+            assertEquals(reference(row), Transaction.deserialize(row), row);
+    }
+
+    @Test
+    void parsesSerializedRowsDirectly() {
+        var parser = new RowParser(StandardCharsets.UTF_8, 16);
+        var store = new TransactionStore();
+        var random = new SplittableRandom(7);
+        for (int i = 0; i < 1_000; i++) {
+            var dateTime = LocalDateTime.of(random.nextInt(1_900, 2_100), random.nextInt(1, 13), random.nextInt(1, 29),
+                random.nextInt(24), random.nextInt(60), random.nextBoolean() ? 0 : random.nextInt(60));
+            var transaction = new Transaction(dateTime, "Description ${i % 5}", "Vendor", random.nextLong(-100_000, 100_000) / 100.0);
+            var bytes = transaction.serialize().getBytes(StandardCharsets.UTF_8);
+
+            assertTrue(parser.parse(bytes, 0, bytes.length), transaction.serialize());
+            assertEquals(transaction, parser.transaction(), transaction.serialize());
+            parser.addTo(store);
+            assertEquals(transaction, store.get(store.size() - 1), "Row differs once stored");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowWriterTest {
+    private static String expected(TransactionStore store) {
+        var lines = new StringBuilder();
+        for (int row = 0; row < store.size(); row++)
+            lines.append(store.get(row).serialize()).append(System.lineSeparator());
+        return lines.toString();
+    }
+
+    private static String written(TransactionStore store) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var writer = new RowWriter(store, Channels.newChannel(bytes), StandardCharsets.UTF_8);
+        for (int row = 0; row < store.size(); row++)
+            writer.write(row);
+        writer.flush();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void matchesSerializeOnEdgeCases() throws IOException {
+        var store = new TransactionStore();
+        store.add(new Transaction(LocalDateTime.of(2_024, 2, 29, 0, 0), "Leap", "Vendor", 0.0));
+        store.add(new Transaction(LocalDateTime.of(2_024, 12, 31, 23, 59, 59), "New year's eve", "Café", -0.01));
+        store.add(new Transaction(LocalDateTime.of(1_969, 12, 31, 23, 59, 1), "Before the epoch", "Vendor", 12.3));
+        store.add(new Transaction(LocalDateTime.of(1, 1, 1, 0, 0), "Early", "Vendor", 1_000_000.0));
+        store.add(new Transaction(LocalDateTime.of(9_999, 12, 31, 12, 0), "Late", "Vendor", -99_999_999.99));
+        store.add(new Transaction(LocalDateTime.of(10_000, 1, 1, 0, 0), "Signed year", "Vendor", 1.0));
+        store.add(new Transaction(LocalDateTime.of(-1, 6, 1, 0, 0), "Negative year", "Vendor", 1.0));
+        store.add(new Transaction(LocalDateTime.of(2_024, 3, 7, 12, 18), "", "", 9_999_999_999_999.99));
+        store.add(new Transaction(LocalDateTime.of(2_024, 3, 7, 12, 18), "Huge", "Vendor", 1e17));
+
+        assertEquals(expected(store), written(store), "Output differs from serialize");
+    }
+
+    @Test
+    void matchesSerializeAcrossBlocks() throws IOException {
+        var store = new TransactionStore();
+        var random = new SplittableRandom(11);
+        var start = LocalDateTime.of(2_000, 1, 1, 0, 0);
+        for (int i = 0; i < 60_000; i++)
+            store.add(new Transaction(start.plusSeconds(random.nextLong(1_000_000_000L)), "Description ${i % 97}",
+                "Vendor ${i % 13}", random.nextLong(-1_000_000, 1_000_000) / 100.0));
+
+        assertEquals(expected(store), written(store), "Output differs once the buffer fills");
+    }
+}
@@ -0,0 +1,564 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionDatabaseTest {
+    @TempDir
+    Path directory;
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("ledger.csv");
+    }
+
+    /**
+     * Writes the ledger file, then opens it.
+     */
+    private TransactionDatabase ledger(String contents) throws IOException {
+        Files.writeString(file, contents);
+        return open();
+    }
+
+    /**
+     * Writes the ledger file, then opens it with a durability policy.
+     */
+    private TransactionDatabase ledger(String contents, DurabilityPolicy durability) throws IOException {
+        Files.writeString(file, contents);
+        return new TransactionDatabase(file.toFile(), false, durability);
+    }
+
+    /**
+     * Opens the ledger file as it is.
+     */
+    private TransactionDatabase open() throws IOException {
+        return new TransactionDatabase(file.toFile());
+    }
+
+    private static List<Transaction> contents(Iterable<Transaction> db) {
+        var list = new ArrayList<Transaction>();
+        db.forEach(list::add);
+        return list;
+    }
+
+    private static Transaction transaction(int day, double amount) {
+        return new Transaction(LocalDateTime.of(2_024, 3, day, 12, 18), "Description $day", "Vendor", amount);
+    }
+
+    @Test
+    void appendsWithoutRewriting() throws IOException {
+        try (var db = ledger("2024-03-01T12:18,Description 1,Vendor,100.00")) {
+            db.addTransaction(transaction(2, -25.5));
+            assertEquals(
+                "2024-03-01T12:18,Description 1,Vendor,100.00" + System.lineSeparator()
+                + "2024-03-02T12:18,Description 2,Vendor,-25.50" + System.lineSeparator(),
+                Files.readString(file),
+                "Record is not appended on its own line");
+        }
+
+        try (var db = open()) {
+            assertEquals(List.of(transaction(1, 100), transaction(2, -25.5)), contents(db), "Journal does not reload");
+        }
+    }
+
+    @Test
+    void compactRewritesFile() throws IOException {
+        try (var db = ledger("garbage" + System.lineSeparator())) {
+            db.addTransaction(transaction(3, 10));
+            db.compact();
+            db.addTransaction(transaction(4, 20));
+        }
+
+        assertEquals(
+            "2024-03-03T12:18,Description 3,Vendor,10.00" + System.lineSeparator()
+            + "2024-03-04T12:18,Description 4,Vendor,20.00" + System.lineSeparator(),
+            Files.readString(file),
+            "Compaction does not rewrite the file");
+    }
+
+    @Test
+    void tombstonesHideRows() throws IOException {
+        try (var db = ledger("")) {
+            db.addTransaction(transaction(1, 10));
+            db.addTransaction(transaction(2, 20));
+            db.addTransaction(transaction(1, 10));
+            assertTrue(db.removeRow(0), "Row is not removed");
+            assertFalse(db.removeRow(0), "Row is removed twice");
+            assertEquals(List.of(transaction(2, 20), transaction(1, 10)), contents(db), "Removed row is visible");
+            assertEquals(4, Files.readAllLines(file).size(), "Removal is not journaled");
+        }
+
+        try (var db = open()) {
+            assertEquals(List.of(transaction(2, 20), transaction(1, 10)), contents(db), "Tombstone does not reload");
+            assertArrayEquals(new int[]{0, 1}, db.rows().toArray(), "Rows are not renumbered on load");
+        }
+    }
+
+    @Test
+    void compactsInBackground() throws IOException {
+        try (var db = ledger("")) {
+            for (int day = 1; day <= 28; day++)
+                db.addTransaction(transaction(day, day));
+            for (int row = 0; row < 20; row++)
+                db.removeRow(row);
+        }
+
+        assertTrue(Files.readAllLines(file).size() < 48, "Tombstones are not compacted away");
+        try (var db = open()) {
+            var expected = new ArrayList<Transaction>();
+            for (int day = 21; day <= 28; day++)
+                expected.add(transaction(day, day));
+            assertEquals(expected, contents(db), "Compaction keeps the wrong rows");
+        }
+    }
+
+    @Test
+    void keepsRowsAddedDuringCompaction() throws Exception {
+        var temp = directory.resolve("ledger.csv.tmp");
+        var rows = 200_000;
+        try (var out = Files.newBufferedWriter(file)) {
+            for (int row = 0; row < rows; row++)
+                out.write("2024-03-01T12:18,Description $row,Vendor,1.00" + System.lineSeparator());
+        }
+
+        try (var db = open()) {
+            db.removeRow(0);
+            var failure = new AtomicReference<Throwable>();
+            var compaction = new Thread(() -> {
+                try {
+                    db.compact();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            compaction.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+            compaction.start();
+            while (!Files.exists(temp) && compaction.isAlive())
+                Thread.onSpinWait();
+            db.addTransaction(transaction(2, 5));
+            compaction.join(TimeUnit.MINUTES.toMillis(1));
+            assertFalse(compaction.isAlive(), "Compaction does not finish");
+            assertNull(failure.get(), "Compaction fails");
+
+            var lines = Files.readAllLines(file);
+            assertEquals(rows, lines.size(), "Compaction loses or repeats rows");
+            assertEquals("2024-03-02T12:18,Description 2,Vendor,5.00", lines.get(rows - 1),
+                "Row added during compaction is not in the new file");
+        }
+
+        try (var db = open()) {
+            assertEquals(rows, db.rows().count(), "Compacted file does not reload");
+        }
+    }
+
+    @Test
+    void closesOnce() throws IOException {
+        var db = ledger("", DurabilityPolicy.everyMillis(60_000));
+        db.addTransaction(transaction(1, 10));
+        db.close();
+        db.close();
+        assertEquals(transaction(1, 10).serialize() + System.lineSeparator(), Files.readString(file),
+            "Queued record is not written on close");
+    }
+
+    @Test
+    void loadsChunksInOrder() throws IOException {
+        var expected = new ArrayList<Transaction>();
+        try (var writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < 100_000; i++) {
+                var transaction = new Transaction(LocalDateTime.of(2_024, 1, 1, 0, 0).plusMinutes(i), "Item $i", "Vendor", i);
+                expected.add(transaction);
+                writer.write(transaction.serialize());
+                writer.write((i % 2 == 0) ? "\r\n" : "\n");
+            }
+        }
+
+        try (var db = open()) {
+            assertEquals(expected, contents(db), "Chunks are not merged in file order");
+        }
+    }
+
+    @Test
+    void loadsProgressively() throws IOException {
+        var expected = new ArrayList<Transaction>();
+        try (var writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < 100_000; i++) {
+                var transaction = new Transaction(LocalDateTime.of(2_024, 1, 1, 0, 0).plusMinutes(i), "Item $i", "Vendor", i);
+                expected.add(transaction);
+                writer.write(transaction.serialize());
+                writer.newLine();
+            }
+            writer.write("#deleted," + expected.remove(0).serialize());
+            writer.newLine();
+        }
+
+        try (var db = new TransactionDatabase(file.toFile(), true)) {
+            assertTrue(db.size() > 0, "First chunk is not loaded");
+            var added = transaction(1, 10);
+            db.addTransaction(added);
+            expected.add(added);
+            assertFalse(db.isLoading(), "Mutation does not wait for loading");
+            assertEquals(100, db.loadProgress(), "Progress is not complete");
+            assertEquals(expected, contents(db), "Progressive load differs");
+        }
+    }
+
+    @Test
+    void batchesRecordsUntilClose() throws IOException {
+        var db = ledger("", DurabilityPolicy.everyRecords(1_000));
+        for (int day = 1; day <= 5; day++)
+            db.addTransaction(transaction(day, day));
+        db.removeRow(0);
+        assertEquals("", Files.readString(file), "Records are written before the batch is full");
+        db.close();
+
+        assertEquals(6, Files.readAllLines(file).size(), "Close does not drain the queue");
+        try (var reopened = open()) {
+            assertEquals(4, reopened.size(), "Drained records are wrong");
+        }
+    }
+
+    @Test
+    void importsNewTransactionsOnce() throws IOException {
+        var source = directory.resolve("export.csv");
+        Files.write(source, List.of(
+            transaction(1, 10).serialize(),
+            transaction(2, 20).serialize(),
+            "not a transaction",
+            transaction(3, 30).serialize(),
+            transaction(2, 20).serialize(),
+            "2024-03-04T12:18,Description 4, ,40",
+            "",
+            transaction(5, 50).serialize()));
+
+        try (var db = ledger("", DurabilityPolicy.everyRecords(1_000))) {
+            db.addTransaction(transaction(1, 10));
+            var result = db.importTransactions(source);
+            assertEquals(new ImportResult(3, 2, 2, result.elapsedNanos()), result, "Import counts are wrong");
+            assertEquals(4, Files.readAllLines(file).size(), "Import is not written in one durable batch");
+        }
+        try (var db = open()) {
+            assertEquals(List.of(transaction(1, 10), transaction(2, 20), transaction(3, 30), transaction(5, 50)),
+                contents(db), "Imported transactions are wrong");
+        }
+    }
+
+    @Test
+    void rowsWithinDates() throws IOException {
+        try (var db = ledger("")) {
+            for (int day : new int[]{5, 1, 3, 5, 2, 4})
+                db.addTransaction(transaction(day, day));
+            db.removeRow(3);
+
+            assertArrayEquals(new int[]{1, 2, 4}, db.rows(null, LocalDate.of(2_024, 3, 4)).toArray(), "Before is wrong");
+            assertArrayEquals(new int[]{0, 2, 5}, db.rows(LocalDate.of(2_024, 3, 3), null).toArray(), "After is wrong");
+            assertArrayEquals(new int[]{2, 5},
+                db.rows(LocalDate.of(2_024, 3, 3), LocalDate.of(2_024, 3, 5)).toArray(), "Range is wrong");
+            assertEquals(0, db.rows(LocalDate.of(2_024, 3, 5), LocalDate.of(2_024, 3, 1)).count(), "Empty range is wrong");
+            assertEquals(5, db.size(), "Size is wrong");
+        }
+    }
+
+    @Test
+    void monthlyTotals() throws IOException {
+        try (var db = ledger("2023-12-31T23:59:59,Late,Vendor,-5.25" + System.lineSeparator())) {
+            db.addTransaction(transaction(1, 10));
+            db.addTransaction(new Transaction(LocalDateTime.of(2_024, 4, 1, 0, 0), "April", "Vendor", 2.5));
+            db.addTransaction(new Transaction(LocalDateTime.of(2_022, 1, 1, 0, 0), "Early", "Vendor", 100));
+            db.removeRow(3);
+
+            assertEquals(new Totals(3, 725), db.monthlyTotal(null, null), "Overall total is wrong");
+            assertEquals(new Totals(1, 1_000),
+                db.monthlyTotal(YearMonth.of(2_024, 3), YearMonth.of(2_024, 4)), "Single month is wrong");
+            assertEquals(new Totals(2, 1_250), db.monthlyTotal(YearMonth.of(2_024, 1), null), "Open end is wrong");
+            assertEquals(new Totals(1, -525), db.monthlyTotal(null, YearMonth.of(2_024, 1)), "Open start is wrong");
+            assertEquals(new Totals(0, 0), db.monthlyTotal(YearMonth.of(2_030, 1), null), "Future is wrong");
+        }
+    }
+
+    @Test
+    void dailyTotalsMatchScan() throws IOException {
+        try (var db = ledger("")) {
+            for (int day = 1; day <= 31; day++)
+                db.addTransaction(transaction(day, day - 10));
+            db.addTransaction(new Transaction(LocalDateTime.of(2_019, 6, 1, 0, 0), "Early", "Vendor", 3));
+            db.addTransaction(new Transaction(LocalDateTime.of(2_031, 6, 1, 0, 0), "Late", "Vendor", 7));
+            db.removeRow(4);
+            db.removeRow(20);
+
+            var bounds = Arrays.asList(null, LocalDate.of(2_019, 6, 1), LocalDate.of(2_024, 3, 5),
+                LocalDate.of(2_024, 3, 21), LocalDate.of(2_024, 4, 1), LocalDate.of(2_040, 1, 1));
+            for (var after : bounds)
+                for (var before : bounds) {
+                    var rows = db.rows(after, before).toArray();
+                    var expected = new Totals(rows.length, Arrays.stream(rows).mapToLong(db::cents).sum());
+                    assertEquals(expected, db.dailyTotal(after, before), "Totals from $after to $before are wrong");
+                }
+        }
+    }
+
+    @Test
+    void numericMatchesOnlyScanTheirRange() throws IOException {
+        try (var db = ledger("")) {
+            for (int day = 1; day <= 31; day++)
+                db.addTransaction(transaction(day, day - 10));
+            var bounds = new FilterOptions(LocalDate.of(2_024, 3, 5), null, null, null, 3.0, 15.0, null)
+                .numericBounds();
+
+            var matches = db.numericMatches(bounds, 10, 20);
+            db.addTransaction(transaction(1, 4));
+            for (int row = 0; row < db.rowLimit(); row++)
+                assertEquals(bounds.test(db.epochSecond(row), db.cents(row)), matches.test(row),
+                    "Row $row is matched wrongly");
+        }
+    }
+
+    @Test
+    void journalsRowsAsStored() throws IOException {
+        var precise = new Transaction(LocalDateTime.of(2_024, 3, 1, 12, 0, 30, 500_000_000), "Description", "Vendor", 1.0);
+        try (var db = ledger("")) {
+            db.addTransaction(precise);
+            assertEquals(db.getRow(0).serialize() + System.lineSeparator(), Files.readString(file),
+                "Journal does not match the store");
+            assertTrue(db.removeRow(0), "Row is not removed");
+        }
+        Files.delete(directory.resolve("ledger.csv.snap"));
+        try (var db = open()) {
+            assertEquals(0, db.size(), "Tombstone does not match its row");
+        }
+    }
+
+    @Test
+    void loadsFreshSnapshot() throws IOException {
+        try (var db = ledger("")) {
+            db.addTransaction(transaction(1, 10));
+            db.addTransaction(transaction(2, -20));
+            db.removeRow(0);
+        }
+        var snapshot = directory.resolve("ledger.csv.snap");
+        assertTrue(Files.exists(snapshot), "Snapshot is not written");
+
+        // Same size and time, so only the snapshot can say what the file used to hold.
+        var modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, Files.readString(file).replace('2', '3'));
+        Files.setLastModifiedTime(file, modified);
+        try (var db = open()) {
+            assertIterableEquals(List.of(transaction(2, -20)), db, "Snapshot is not loaded");
+        }
+    }
+
+    @Test
+    void ignoresStaleSnapshot() throws IOException {
+        try (var db = ledger("")) {
+            db.addTransaction(transaction(1, 10));
+        }
+        Files.writeString(file, transaction(2, 5).serialize() + System.lineSeparator(), StandardOpenOption.APPEND);
+        try (var db = open()) {
+            assertIterableEquals(List.of(transaction(1, 10), transaction(2, 5)), db, "Stale snapshot is loaded");
+        }
+        try (var db = open()) {
+            assertEquals(2, db.size(), "Snapshot is not rewritten");
+        }
+    }
+
+    @Test
+    void partitionsByMonth() throws IOException {
+        var march = directory.resolve("2024-03.csv");
+        var april = directory.resolve("2024-04.csv");
+        var first = new Transaction(LocalDateTime.of(2_024, 4, 1, 0, 0), "April", "Vendor", 2.5);
+        Files.writeString(march, transaction(1, 10).serialize() + System.lineSeparator());
+        Files.writeString(directory.resolve("notes.txt"), "Not a month");
+
+        try (var db = new TransactionDatabase(directory.toFile())) {
+            db.addTransaction(first);
+            db.addTransaction(transaction(2, 20));
+            var written = Files.readString(april);
+            var row = db.rows(LocalDate.of(2_024, 3, 1), LocalDate.of(2_024, 3, 2)).findFirst().orElseThrow();
+            assertTrue(db.removeRow(row), "Row is not removed");
+            assertEquals(3, Files.readAllLines(march).size(), "Removal is not journaled in its month");
+            db.compact();
+            assertEquals(written, Files.readString(april), "Untouched month is rewritten");
+            assertEquals(transaction(2, 20).serialize() + System.lineSeparator(), Files.readString(march),
+                "Month is not compacted");
+        }
+
+        try (var db = new TransactionDatabase(directory.toFile())) {
+            assertEquals(1, db.rows(first.date(), null).count(), "Later month is not loaded");
+            assertIterableEquals(List.of(transaction(2, 20), first), db, "Months are not in order");
+        }
+    }
+
+    @Test
+    void countsMonthsWithoutLoadingThem() throws IOException {
+        Files.writeString(directory.resolve("2024-03.csv"), transaction(1, 10).serialize() + System.lineSeparator());
+        Files.writeString(directory.resolve("2024-04.csv"),
+            new Transaction(LocalDateTime.of(2_024, 4, 1, 0, 0), "April", "Vendor", 2.5).serialize());
+
+        try (var db = new TransactionDatabase(directory.toFile())) {
+            assertEquals(2, db.totalSize(), "Months without snapshots are not counted");
+        }
+        try (var db = new TransactionDatabase(directory.toFile())) {
+            assertEquals(2, db.totalSize(), "Months are not counted from their snapshots");
+            assertEquals(0, db.size(), "Counting loads months");
+            db.addTransaction(transaction(2, 20));
+            assertEquals(3, db.totalSize(), "Loaded months are counted twice or not at all");
+        }
+    }
+
+    @Test
+    void loadsMonthsWhenNeeded() throws IOException {
+        Files.writeString(directory.resolve("2024-03.csv"), transaction(1, 10).serialize() + System.lineSeparator());
+        Files.writeString(directory.resolve("2024-04.csv"),
+            new Transaction(LocalDateTime.of(2_024, 4, 1, 0, 0), "April", "Vendor", 2.5).serialize());
+
+        try (var db = new TransactionDatabase(directory.toFile())) {
+            assertEquals(0, db.size(), "Months are loaded up front");
+            assertEquals(new Totals(1, 250), db.monthlyTotal(YearMonth.of(2_024, 4), null), "Month total is wrong");
+            assertEquals(1, db.size(), "Months outside the range are loaded");
+            assertEquals(2, db.rows().count(), "Every month is not loaded");
+        }
+    }
+
+    @Test
+    void interruptedMonthLoadLeavesNoRows() throws Exception {
+        var march = directory.resolve("2024-03.csv");
+        var rows = 60_000;
+        try (var out = Files.newBufferedWriter(march)) {
+            for (int row = 0; row < rows; row++)
+                out.write("2024-03-01T12:18,Description $row,Vendor,1.00" + System.lineSeparator());
+        }
+
+        try (var db = new TransactionDatabase(directory.toFile())) {
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(UncheckedIOException.class, () -> db.rows().count(), "Interrupted load does not fail");
+            } finally {
+                //noinspection ResultOfMethodCallIgnored
+                Thread.interrupted();
+            }
+            assertEquals(0, db.size(), "Interrupted load leaves partial rows");
+
+            // Interrupts a load which has read the whole file and is waiting to publish it
+            var failure = new AtomicReference<Throwable>();
+            Thread worker;
+            //noinspection SynchronizationOnLocalVariableOrMethodParameter
+            synchronized (db) {
+                worker = new Thread(() -> db.rows(LocalDate.of(2_024, 3, 1), LocalDate.of(2_024, 4, 1)).count());
+                worker.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+                worker.start();
+                while ((worker.getState() != Thread.State.BLOCKED) && worker.isAlive())
+                    Thread.onSpinWait();
+                worker.interrupt();
+            }
+            worker.join(TimeUnit.MINUTES.toMillis(1));
+            assertFalse(worker.isAlive(), "Load does not finish");
+            assertNull(failure.get(), "Load fails once the file is read");
+            assertEquals(rows, db.rows().count(), "Interrupted load leaves partial or duplicate rows");
+        }
+    }
+
+    /**
+     * The transaction written to a row by {@link #readersNeverBlockWriter()}, so that readers can tell a torn row.
+     * Every one is for a dollar, so the count and total of any consistent set of them agree,
+     * and they alternate between earlier and later dates, so the totals keep growing in both directions.
+     */
+    private static Transaction stressed(int row) {
+        var days = ((row % 2) == 0) ? row : -row;
+        return new Transaction(LocalDateTime.of(2_024, 1, 1, 0, 0).plusDays(days), "Item $row", "Vendor ${row % 13}", 1);
+    }
+
+    private static void checkRow(TransactionDatabase db, int row) {
+        if (!db.getRow(row).equals(stressed(row)))
+            throw new AssertionError("Row $row is torn: ${db.getRow(row)}");
+    }
+
+    private static void checkTotals(Totals totals, int limit) {
+        if ((totals.cents() != (totals.count() * 100)) || (totals.count() < 0) || (totals.count() > limit))
+            throw new AssertionError("Totals are torn: $totals");
+    }
+
+    @Test
+    void readersNeverBlockWriter() throws Exception {
+        var rows = 30_000;
+        var failures = new ConcurrentLinkedQueue<Throwable>();
+        var done = new AtomicBoolean();
+
+        try (var db = ledger("", DurabilityPolicy.everyRecords(1_000))) {
+            db.addTransaction(stressed(0));
+            var paused = new CountDownLatch(1);
+            var written = new CountDownLatch(1);
+            var threads = new ArrayList<Thread>();
+            // Stops partway through a stream until the writer is done, so any lock held by a reader would stall it
+            threads.add(new Thread(() -> db.rows().forEach(row -> {
+                paused.countDown();
+                try {
+                    written.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                checkRow(db, row);
+            })));
+            // Reads totals as fast as possible, so that reads overlap the writer updating them
+            for (int i = 0; i < 3; i++)
+                threads.add(new Thread(() -> {
+                    var after = LocalDate.of(2_023, 6, 1);
+                    var before = LocalDate.of(2_024, 6, 1);
+                    while (!done.get()) {
+                        checkTotals(db.dailyTotal(null, null), db.rowLimit());
+                        checkTotals(db.dailyTotal(after, before), db.rowLimit());
+                        checkTotals(db.monthlyTotal(null, null), db.rowLimit());
+                        checkTotals(db.monthlyTotal(YearMonth.from(after), YearMonth.from(before)), db.rowLimit());
+                    }
+                }));
+            threads.add(new Thread(() -> {
+                while (!done.get()) {
+                    var month = db.rows(LocalDate.of(2_024, 2, 1), LocalDate.of(2_024, 3, 1)).toArray();
+                    for (int j = 0; j < month.length; j++) {
+                        checkRow(db, month[j]);
+                        if ((j > 0) && (month[j - 1] >= month[j]))
+                            throw new AssertionError("Date range is out of order");
+                    }
+                }
+            }));
+            for (var thread : threads) {
+                thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+                thread.start();
+            }
+            paused.await();
+
+            var writer = new Thread(() -> {
+                for (int row = 1; row < rows; row++) {
+                    db.addTransaction(stressed(row));
+                    if ((row % 10) == 0)
+                        db.removeRow(row - 5);
+                }
+            });
+            writer.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+            writer.start();
+            writer.join(TimeUnit.MINUTES.toMillis(1));
+            assertFalse(writer.isAlive(), "Writer is blocked by readers");
+            written.countDown();
+            done.set(true);
+            for (var thread : threads)
+                thread.join();
+            assertEquals(List.of(), List.copyOf(failures), "Readers see inconsistent rows or totals");
+
+            var live = db.rows().count();
+            assertEquals(rows - ((rows - 1) / 10), live, "Rows are lost");
+            assertEquals(new Totals(live, live * 100), db.dailyTotal(null, null), "Totals do not match the rows");
+        }
+    }
+}
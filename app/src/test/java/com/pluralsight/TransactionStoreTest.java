@@ -0,0 +1,51 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionStoreTest {
+    @Test
+    void roundTrip() {
+        var store = new TransactionStore(1);
+        var transactions = List.of(
+            new Transaction(LocalDateTime.of(2_024, 3, 7, 12, 18), "Description", "Vendor", 100.0),
+            new Transaction(LocalDateTime.of(1_999, 12, 31, 23, 59, 59), "Other", "Vendor", -0.07),
+            new Transaction(LocalDateTime.of(2_024, 3, 7, 12, 18), "Description", "Someone", 12_345.67));
+        for (int i = 0; i < transactions.size(); i++)
+            assertEquals(i, store.add(transactions.get(i)), "Rows are not numbered in order");
+
+        assertEquals(3, store.size(), "Size is wrong");
+        for (int i = 0; i < transactions.size(); i++)
+            assertEquals(transactions.get(i), store.get(i), "Row does not round trip");
+        assertEquals(-7, store.cents(1), "Cents are wrong");
+        assertEquals(2, store.vendors().size(), "Vendors are not deduplicated");
+        assertEquals(store.descriptionId(0), store.descriptionId(2), "Descriptions are not deduplicated");
+    }
+
+    @Test
+    void addAllRemapsDictionaries() {
+        var dateTime = LocalDateTime.of(2_024, 3, 7, 12, 18);
+        var first = new TransactionStore();
+        first.add(new Transaction(dateTime, "A", "X", 1));
+        var second = new TransactionStore();
+        second.add(new Transaction(dateTime, "B", "Y", 2));
+        second.add(new Transaction(dateTime, "A", "X", 3));
+
+        first.addAll(second);
+        assertEquals(new Transaction(dateTime, "B", "Y", 2), first.get(1), "Copied row is wrong");
+        assertEquals(new Transaction(dateTime, "A", "X", 3), first.get(2), "Copied row is wrong");
+        assertEquals(first.vendorId(0), first.vendorId(2), "Dictionaries are not merged");
+
+        var removed = new BitSet();
+        removed.set(1);
+        var rest = first.without(removed);
+        assertEquals(2, rest.size(), "Row is not removed");
+        assertEquals(new Transaction(dateTime, "A", "X", 3), rest.get(1), "Rows are not renumbered");
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+    @Test
+    void matchesLikeContains() {
+        var dictionary = new StringDictionary();
+        var index = new TrigramIndex(dictionary);
+        var values = List.of("Amazon", "amazing grace", "Walmart", "AMA", "Shell", "ABC Apartments", "");
+        values.forEach(dictionary::intern);
+        index.update();
+
+        for (var needle : List.of("", "a", "AM", "ama", "amaz", "mart", "zzz", "apartment", "ell", "Shell Oil")) {
+            var expected = new BitSet();
+            for (int id = 0; id < values.size(); id++)
+                if (values.get(id).toLowerCase().contains(needle.toLowerCase()))
+                    expected.set(id);
+            assertEquals(expected, index.matching(needle), "Wrong matches for \"$needle\"");
+        }
+    }
+
+    @Test
+    void updatesWithDictionary() {
+        var dictionary = new StringDictionary();
+        var index = new TrigramIndex(dictionary);
+        dictionary.intern("Costco");
+        index.update();
+        assertEquals(1, index.matching("cost").cardinality(), "Initial string is not indexed");
+
+        var matcher = index.matcher("COST");
+
+        var id = dictionary.intern("Costa Coffee");
+        assertEquals(1, index.matching("cost").cardinality(), "New string is indexed before update");
+        assertTrue(matcher.test(id), "Compiled matcher misses a string added before update");
+        index.update();
+        assertEquals(2, index.matching("cost").cardinality(), "New string is not indexed");
+        assertTrue(matcher.test(id), "Compiled matcher misses a string added since it was compiled");
+        assertFalse(matcher.test(dictionary.intern("Target")), "Compiled matcher accepts a new string without the text");
+    }
+}
@@ -0,0 +1,43 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.results.format.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+import java.io.*;
+
+/**
+ * Runs the benchmarks with the allocation profiler on and the results saved as JSON,
+ * so that runs from different releases can be compared.
+ * Takes the same arguments as JMH itself, which override these defaults.
+ */
+final class BenchmarkRunner {
+    private static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        var given = new CommandLineOptions(args);
+        if (given.shouldHelp()) {
+            given.showHelp();
+            return;
+        }
+        if (given.shouldList()) {
+            new Runner(given).list();
+            return;
+        }
+
+        var options = new OptionsBuilder().parent(given);
+        if (given.getProfilers().isEmpty())
+            options.addProfiler(GCProfiler.class);
+        if (!given.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        if (!given.getResult().hasValue())
+            options.result(DEFAULT_RESULT);
+        new Runner(options.build()).run();
+    }
+}
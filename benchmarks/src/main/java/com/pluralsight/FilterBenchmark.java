@@ -0,0 +1,62 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures checking single transactions against a filter with one kind of clause.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+    private static final int SAMPLES = 4_096;
+
+    @Param({"date", "description", "vendor", "amount", "credits", "all"})
+    public String clause;
+
+    private Transaction[] transactions;
+    private FilterOptions filter;
+    private int next;
+
+    /**
+     * @param clause Which clause to set: {@code date}, {@code description}, {@code vendor}, {@code amount},
+     *               {@code credits}, or {@code all} of them.
+     * @return A filter with that clause set to something which some, but not most, synthetic transactions pass.
+     */
+    static FilterOptions filter(String clause) {
+        var filter = new FilterOptions(null, null, null, null, null, null, null);
+        var all = "all".equals(clause);
+        if (all || "date".equals(clause))
+            filter = filter.withAfter(SyntheticLedger.END.minusYears(2))
+                .withBefore(SyntheticLedger.END.minusMonths(6));
+        if (all || "description".equals(clause))
+            filter = filter.withDescription("shop");
+        if (all || "vendor".equals(clause))
+            filter = filter.withVendor("a");
+        if (all || "amount".equals(clause))
+            filter = filter.withMin(-1_000.0).withMax(1_000.0);
+        if (all || "credits".equals(clause))
+            filter = filter.withOnlyCredits(true);
+        return filter;
+    }
+
+    @Setup
+    public void setUp() {
+        transactions = SyntheticLedger.transactions(SAMPLES).toArray(Transaction[]::new);
+        filter = filter(clause);
+    }
+
+    @Benchmark
+    public boolean test() {
+        next = (next + 1) & (SAMPLES - 1);
+        return filter.test(transactions[next]);
+    }
+}
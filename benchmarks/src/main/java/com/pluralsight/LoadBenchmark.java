@@ -0,0 +1,52 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures opening a whole ledger, either by parsing its CSV file or by reading its snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    /**
+     * {@code csv} turns snapshots off, so every load parses the file without writing a snapshot afterwards,
+     * while {@code snapshot} loads the one written during setup.
+     * Each trial runs in a fresh fork, so the property is set before snapshots are first used.
+     */
+    @Param({"csv", "snapshot"})
+    public String source;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("csv".equals(source))
+            System.setProperty(SnapshotFile.PROPERTY, "false");
+        file = SyntheticLedger.file(rows);
+        if ("snapshot".equals(source)) {
+            new TransactionDatabase(file, false, DurabilityPolicy.everyCommit()).close();
+            if (!Files.exists(file.toPath().resolveSibling(file.getName() + ".snap")))
+                throw new IllegalStateException("No snapshot was written for $file");
+        }
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        try (var database = new TransactionDatabase(file, false, DurabilityPolicy.everyCommit())) {
+            return database.size();
+        }
+    }
+}
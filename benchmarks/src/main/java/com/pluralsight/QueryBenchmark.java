@@ -0,0 +1,62 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures the search the transaction list runs whenever its filter changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class QueryBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"date", "description", "vendor", "amount", "credits", "all"})
+    public String clause;
+
+    /**
+     * The value of the {@code ledger.vector} property, which decides whether amount and credit filters scan columns.
+     * Each trial runs in a fresh fork, so it is set before the scan reads it.
+     */
+    @Param({"false", "true"})
+    public boolean vector;
+
+    private TransactionDatabase database;
+    private FilterOptions filter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("ledger.vector", Boolean.toString(vector));
+        if (NumericScan.enabled() != vector)
+            throw new IllegalStateException("ledger.vector was read before it was set");
+        database = new TransactionDatabase(SyntheticLedger.file(rows), false, DurabilityPolicy.everyCommit());
+        filter = FilterBenchmark.filter(clause);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    /**
+     * Does the same work as a search started by {@code TransactionListView.generateList}, without the GUI or the
+     * debounce delay.
+     */
+    @Benchmark
+    public Totals generateList() {
+        var result = database.rows(filter).toArray();
+        return filter.onlyDates()
+               ? database.dailyTotal(filter.after(), filter.before())
+               : new Totals(result.length, Arrays.stream(result).mapToLong(database::cents).sum());
+    }
+}
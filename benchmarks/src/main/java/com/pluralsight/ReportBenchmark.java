@@ -0,0 +1,48 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures working out the figures a report shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"MONTH_TO_DATE", "PRIOR_MONTH", "YEAR_TO_DATE", "PRIOR_YEAR"})
+    public String report;
+
+    private TransactionDatabase database;
+    private ReportType type;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = new TransactionDatabase(SyntheticLedger.file(rows), false, DurabilityPolicy.everyCommit());
+        type = ReportType.valueOf(report);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    /**
+     * Does the same work as opening a {@code ReportView}, without the GUI.
+     */
+    @Benchmark
+    public List<String> summarize() {
+        return type.summarize(database, SyntheticLedger.CURRENT_MONTH);
+    }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures rewriting a whole ledger, as a compaction does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SaveBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private TransactionDatabase database;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = new TransactionDatabase(SyntheticLedger.file(rows), false, DurabilityPolicy.everyCommit());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        database.compact();
+    }
+}
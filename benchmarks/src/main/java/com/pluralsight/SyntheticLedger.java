@@ -0,0 +1,95 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Generates reproducible ledgers for benchmarks.
+ * Transactions are spread evenly over the five years up to a fixed day, so that results do not depend on when
+ * the benchmarks run. Reports should treat {@link #CURRENT_MONTH} as the current month, so each has something to cover.
+ */
+final class SyntheticLedger {
+    static final String[] VENDORS = {
+        "Amazon", "Walmart", "Target", "Costco", "ABC Apartments", "ABC Company", "Shell", "Starbucks",
+        "Cheesecake Factory", "Home Depot", "Netflix", "Spotify", "City Utilities", "Joe", "Dr. Smith", "Delta"
+    };
+    static final String[] DESCRIPTIONS = {
+        "Grocery shopping", "Monthly rent payment", "Salary deposit", "Dinner with friends", "Gas",
+        "Coffee", "Invoice paid", "Subscription", "Electric bill", "Hardware", "Flight", "Checkup"
+    };
+    /**
+     * The day just after the last transaction.
+     */
+    static final LocalDate END = LocalDate.of(2_024, 7, 1);
+    /**
+     * The month of the last transaction.
+     */
+    static final YearMonth CURRENT_MONTH = YearMonth.from(END.minusDays(1));
+    private static final int YEARS = 5;
+    private static final long SEED = 0x4C45_4447_4552L;
+
+    private SyntheticLedger() {
+    }
+
+    /**
+     * Generates {@code count} transactions in date order. The same count always gives the same transactions.
+     *
+     * @param count How many transactions to generate.
+     * @return The transactions.
+     */
+    static List<Transaction> transactions(int count) {
+        var result = new ArrayList<Transaction>(count);
+        generate(count, result::add);
+        return result;
+    }
+
+    /**
+     * Writes a fresh ledger file with {@code count} transactions, discarding any snapshot left by an earlier run.
+     * Files go in the system temporary directory, since the larger ones do not fit in memory as objects.
+     *
+     * @param count How many transactions the file should hold.
+     * @return The ledger file.
+     * @throws IOException When writing the file fails.
+     */
+    static File file(int count) throws IOException {
+        var directory = Path.of(System.getProperty("java.io.tmpdir"), "ledger-benchmarks");
+        Files.createDirectories(directory);
+        var file = directory.resolve("ledger-$count.csv");
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".snap"));
+
+        try (var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            generate(count, transaction -> {
+                try {
+                    writer.write(transaction.serialize());
+                    writer.write(System.lineSeparator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return file.toFile();
+    }
+
+    private static void generate(int count, Consumer<? super Transaction> sink) {
+        var random = new SplittableRandom(SEED);
+        var end = END.atStartOfDay();
+        var start = end.minusYears(YEARS);
+        var span = Duration.between(start, end).toSeconds();
+
+        for (int i = 0; i < count; i++) {
+            var dateTime = start.plusSeconds((span * i) / count);
+            var description = "${DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]} ${random.nextInt(1_000)}";
+            var vendor = VENDORS[random.nextInt(VENDORS.length)];
+            var cents = random.nextLong(-250_000, 500_000);
+            sink.accept(new Transaction(dateTime, description, vendor, cents / 100.0));
+        }
+    }
+}
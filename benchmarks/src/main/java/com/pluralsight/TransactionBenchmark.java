@@ -0,0 +1,43 @@
+// Copyright (c) Benjamin Bergman 2024.
+
+package com.pluralsight;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures converting single transactions to and from CSV, which load and save do once per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+    private static final int SAMPLES = 4_096;
+
+    private String[] lines;
+    private Transaction[] transactions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        transactions = SyntheticLedger.transactions(SAMPLES).toArray(Transaction[]::new);
+        lines = Arrays.stream(transactions).map(Transaction::serialize).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public Optional<Transaction> deserialize() {
+        next = (next + 1) & (SAMPLES - 1);
+        return Transaction.deserialize(lines[next]);
+    }
+
+    @Benchmark
+    public String serialize() {
+        next = (next + 1) & (SAMPLES - 1);
+        return transactions[next].serialize();
+    }
+}